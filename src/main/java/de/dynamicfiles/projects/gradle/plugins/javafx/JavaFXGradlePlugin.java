@@ -15,24 +15,34 @@
  */
 package de.dynamicfiles.projects.gradle.plugins.javafx;
 
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxAbstractTask;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxGenerateCDSArchiveTask;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxGenerateKeystoreTask;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxNativeTask;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxNativeBundlerTask;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxJarTask;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxListBundlersTask;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxRunTask;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.JavaDetectionTools;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.MonkeyPatcher;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxWorkerIsolation;
 import java.io.File;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
+import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.util.GradleVersion;
 
 /**
  *
@@ -42,61 +52,129 @@ public class JavaFXGradlePlugin implements Plugin<Project> {
 
     public static final String ANT_JAVAFX_JAR_FILENAME = "ant-javafx.jar";
 
+    private static final String TASK_GROUP_NAME = "JavaFX";
+    private static final List<String> JFX_TASK_NAMES = Arrays.asList(
+            JfxJarTask.JFX_TASK_NAME,
+            JfxNativeTask.JFX_TASK_NAME,
+            JfxGenerateKeystoreTask.JFX_TASK_NAME,
+            JfxRunTask.JFX_TASK_NAME,
+            JfxListBundlersTask.JFX_TASK_NAME,
+            JfxGenerateCDSArchiveTask.JFX_TASK_NAME
+    );
+
     @Override
     public void apply(Project project) {
         // can create jfx-jar only after jar-file was created
-        if( project.getTasks().findByName("jar") == null ){
+        // (not using "findByName", as this would create the jar-task)
+        if( !project.getTasks().getNames().contains("jar") ){
             throw new GradleException("Could not find jar-task. Please make sure you are applying the 'java'-plugin.");
         }
-        // gradle is lame, so replace existing tasks with MY NAMES ! *battle-cry*
-
-        // tasks will be available for the buldscript prior full evaluation
-        JfxJarTask jarTask = project.getTasks().replace(JfxJarTask.JFX_TASK_NAME, JfxJarTask.class);
-        JfxNativeTask nativeTask = project.getTasks().replace(JfxNativeTask.JFX_TASK_NAME, JfxNativeTask.class);
-        JfxGenerateKeystoreTask generateKeystoreTask = project.getTasks().replace(JfxGenerateKeystoreTask.JFX_TASK_NAME, JfxGenerateKeystoreTask.class);
-        JfxRunTask runTask = project.getTasks().replace(JfxRunTask.JFX_TASK_NAME, JfxRunTask.class);
-        JfxListBundlersTask jfxListBundlersTask = project.getTasks().replace(JfxListBundlersTask.JFX_TASK_NAME, JfxListBundlersTask.class);
-
-        String taskGroupName = "JavaFX";
-
-        // this is for description
-        jarTask.setGroup(taskGroupName);
-        jarTask.setDescription("Create executable JavaFX-jar");
 
-        nativeTask.setGroup(taskGroupName);
-        nativeTask.setDescription("Create native JavaFX-bundle");
-
-        generateKeystoreTask.setGroup(taskGroupName);
-        generateKeystoreTask.setDescription("Create a Java keystore");
+        // extend project-model to get our settings/configuration via nice configuration
+        JavaFXGradlePluginExtension ext = project.getExtensions().create("jfx", JavaFXGradlePluginExtension.class);
 
-        runTask.setGroup(taskGroupName);
-        runTask.setDescription("Start generated JavaFX-jar");
+        // gradle is lame, so replace existing tasks with MY NAMES ! *battle-cry*
+        // tasks will be available for the buldscript prior full evaluation, but are only created when required (on gradle 4.9 and newer)
+        registerTask(project, JfxJarTask.JFX_TASK_NAME, JfxJarTask.class, jarTask -> {
+            jarTask.setGroup(TASK_GROUP_NAME);
+            jarTask.setDescription("Create executable JavaFX-jar");
+            jarTask.dependsOn("jar");
+        });
+        registerTask(project, JfxNativeTask.JFX_TASK_NAME, JfxNativeTask.class, nativeTask -> {
+            nativeTask.setGroup(TASK_GROUP_NAME);
+            nativeTask.setDescription("Create native JavaFX-bundle");
+            // always create jfx-jar before creating native launcher/bundle
+            // (in maven I had to implement a lifecycle for this ... mehhh)
+            nativeTask.dependsOn(JfxJarTask.JFX_TASK_NAME);
+            // only when requested, as this requires to run the application (evaluated when creating the task-graph)
+            nativeTask.dependsOn((Callable<Object>) () -> ext.isUseCDSArchive() ? JfxGenerateCDSArchiveTask.JFX_TASK_NAME : Collections.emptyList());
+            // when aggregating, the tasks per bundler are doing the work (custom bundlers still run inside this task)
+            nativeTask.dependsOn((Callable<Object>) () -> ext.isAggregateNativeBundlerTasks() ? JfxNativeBundlerTask.getAggregatedTaskNames(ext.getBundler(), ext.isSkipJNLP()) : Collections.emptyList());
+        });
+        // every bundler as separated task, making it possible to run and cache them on their own
+        JfxNativeBundlerTask.getPlatformBundlerIds().forEach((bundlerId, imageBundlerId) -> {
+            registerTask(project, JfxNativeBundlerTask.JFX_TASK_NAME_PREFIX + bundlerId, JfxNativeBundlerTask.class, nativeBundlerTask -> {
+                nativeBundlerTask.setGroup(TASK_GROUP_NAME);
+                nativeBundlerTask.setDescription("Create native JavaFX-bundle using bundler '" + bundlerId + "'");
+                nativeBundlerTask.setBundlerId(bundlerId);
+                nativeBundlerTask.setImageBundlerId(imageBundlerId);
+                nativeBundlerTask.dependsOn(JfxJarTask.JFX_TASK_NAME);
+                nativeBundlerTask.dependsOn((Callable<Object>) () -> ext.isUseCDSArchive() ? JfxGenerateCDSArchiveTask.JFX_TASK_NAME : Collections.emptyList());
+                if( imageBundlerId != null ){
+                    // installers are reusing the application image
+                    nativeBundlerTask.dependsOn((Callable<Object>) () -> ext.isReuseNativeAppImage() ? JfxNativeBundlerTask.JFX_TASK_NAME_PREFIX + imageBundlerId : Collections.emptyList());
+                }
+            });
+        });
+        registerTask(project, JfxGenerateKeystoreTask.JFX_TASK_NAME, JfxGenerateKeystoreTask.class, generateKeystoreTask -> {
+            generateKeystoreTask.setGroup(TASK_GROUP_NAME);
+            generateKeystoreTask.setDescription("Create a Java keystore");
+        });
+        registerTask(project, JfxRunTask.JFX_TASK_NAME, JfxRunTask.class, runTask -> {
+            runTask.setGroup(TASK_GROUP_NAME);
+            runTask.setDescription("Start generated JavaFX-jar");
+            // to run our jfx-jar, we have to create it first ;)
+            runTask.dependsOn(JfxJarTask.JFX_TASK_NAME);
+        });
+        registerTask(project, JfxListBundlersTask.JFX_TASK_NAME, JfxListBundlersTask.class, jfxListBundlersTask -> {
+            jfxListBundlersTask.setGroup(TASK_GROUP_NAME);
+            jfxListBundlersTask.setDescription("List all possible bundlers available on this system, use '--info' parameter for detailed information");
+        });
+        registerTask(project, JfxGenerateCDSArchiveTask.JFX_TASK_NAME, JfxGenerateCDSArchiveTask.class, generateCDSArchiveTask -> {
+            generateCDSArchiveTask.setGroup(TASK_GROUP_NAME);
+            generateCDSArchiveTask.setDescription("Create class-data-sharing archive by running generated JavaFX-jar");
+            // recording loaded classes requires running our jfx-jar too
+            generateCDSArchiveTask.dependsOn(JfxJarTask.JFX_TASK_NAME);
+        });
 
-        jfxListBundlersTask.setGroup(taskGroupName);
-        jfxListBundlersTask.setDescription("List all possible bundlers available on this system, use '--info' parameter for detailed information");
+        // adding ant-javafx.jar AFTER evaluation, because otherwise we can't know if the user has choosen to NOT patch ant-javafx.jar (in case it is required),
+        // but only when some of our tasks is going to be executed
+        project.getGradle().getTaskGraph().whenReady(taskGraph -> {
+            List<JfxAbstractTask> jfxTasks = taskGraph.getAllTasks().stream()
+                    .filter(task -> task.getProject() == project && (JFX_TASK_NAMES.contains(task.getName()) || task instanceof JfxNativeBundlerTask) && task instanceof JfxAbstractTask)
+                    .map(task -> (JfxAbstractTask) task)
+                    .collect(Collectors.toList());
+            if( jfxTasks.isEmpty() ){
+                return;
+            }
+            boolean usePatchedJar = isPatchedJavaFXAntJarRequired(project, ext);
 
-        jarTask.dependsOn(project.getTasks().getByName("jar"));
+            // running isolated does not require ant-javafx.jar inside the buildscript-classloader
+            boolean isWorkerIsolationEnabled = new JfxWorkerIsolation(ext.getWorkerIsolation(), ext.getWorkerMaxHeapSize()).isEnabled();
+            if( !isWorkerIsolationEnabled || jfxTasks.stream().anyMatch(task -> !task.supportsWorkerIsolation()) ){
+                // ugly hack by adding ant-javafx-jar for only require to apply javafx-gradle-plugin
+                // ... can't change via expected way: dependencies.add("classpath", jfxAntJar)
+                // https://discuss.gradle.org/t/how-to-bootstrapp-buildscript-classpath-cannot-change-configuration-classpath-after-it-has-been-resolved/7442
+                addJavaFXAntJARToGradleBuildpath(project, usePatchedJar, ext.isUsePatchedJFXAntLib());
+            }
+            if( isWorkerIsolationEnabled && jfxTasks.stream().anyMatch(JfxAbstractTask::supportsWorkerIsolation) ){
+                File isolatedJavaFXAntJar = getJavaFXAntJarForWorkerIsolation(project, usePatchedJar);
+                jfxTasks.forEach(task -> task.setJavaFXAntJar(isolatedJavaFXAntJar));
+            }
 
-        // always create jfx-jar before creating native launcher/bundle
-        // (in maven I had to implement a lifecycle for this ... mehhh)
-        nativeTask.dependsOn(jarTask);
+            // workers are not allowed to access the project while executing
+            jfxTasks.forEach(JfxAbstractTask::prepareWorkerContext);
+        });
+    }
 
-        // to run our jfx-jar, we have to create it first ;)
-        runTask.dependsOn(jarTask);
+    private <T extends Task> void registerTask(Project project, String taskName, Class<T> taskType, Action<? super T> taskConfiguration) {
+        boolean isLazyRegistrationSupported = GradleVersion.current().compareTo(GradleVersion.version("4.9")) >= 0;
+        if( isLazyRegistrationSupported && !project.getTasks().getNames().contains(taskName) ){
+            registerTaskLazily(project, taskName, taskType, taskConfiguration);
+            return;
+        }
+        T task = project.getTasks().replace(taskName, taskType);
+        taskConfiguration.execute(task);
+    }
 
-        // extend project-model to get our settings/configuration via nice configuration
-        project.getExtensions().create("jfx", JavaFXGradlePluginExtension.class);
-
-        // adding ant-javafx.jar AFTER evaluation, because otherwise we can't know if the user has choosen to NOT patch ant-javafx.jar (in case it is required)
-        project.afterEvaluate(evaluatedProject -> {
-            // ugly hack by adding ant-javafx-jar for only require to apply javafx-gradle-plugin
-            // ... can't change via expected way: dependencies.add("classpath", jfxAntJar)
-            // https://discuss.gradle.org/t/how-to-bootstrapp-buildscript-classpath-cannot-change-configuration-classpath-after-it-has-been-resolved/7442
-            addJavaFXAntJARToGradleBuildpath(evaluatedProject);
-        });
+    /*
+     * Separated method, as "register" is not available before gradle 4.9.
+     */
+    private <T extends Task> void registerTaskLazily(Project project, String taskName, Class<T> taskType, Action<? super T> taskConfiguration) {
+        project.getTasks().register(taskName, taskType, taskConfiguration);
     }
 
-    private void addJavaFXAntJARToGradleBuildpath(Project project) {
+    private File getJavaFXAntJar() {
         String jfxAntJarPath = "/../lib/" + ANT_JAVAFX_JAR_FILENAME;
 
         // on java 9, we have a different path
@@ -111,6 +189,36 @@ public class JavaFXGradlePlugin implements Plugin<Project> {
         if( !jfxAntJar.exists() ){
             throw new GradleException("Couldn't find Ant-JavaFX-library, please make sure you've installed some JDK which includes JavaFX (e.g. OracleJDK or OpenJDK and OpenJFX), and JAVA_HOME is set properly.");
         }
+        return jfxAntJar;
+    }
+
+    private boolean isPatchedJavaFXAntJarRequired(Project project, JavaFXGradlePluginExtension ext) {
+        // I'm very sorry for this ugly condition :(
+        boolean usePatchedJar = System.getProperty("os.name").toLowerCase().startsWith("windows") && isGradleDaemonMode() && (JavaDetectionTools.IS_JAVA_9 || (JavaDetectionTools.IS_JAVA_8 && JavaDetectionTools.isAtLeastOracleJavaUpdateVersion(60)));
+
+        // check if patched jar is required
+        if( usePatchedJar && !ext.isUsePatchedJFXAntLib() ){
+            project.getLogger().warn("You disabled the patching (by setting 'usePatchedJFXAntLib'-property to 'false' inside 'jfx'-configuration) of the " + ANT_JAVAFX_JAR_FILENAME + ", please make sure you know about the consequences.");
+            return false;
+        }
+        return usePatchedJar;
+    }
+
+    private File getJavaFXAntJarForWorkerIsolation(Project project, boolean usePatchedJar) {
+        if( !usePatchedJar ){
+            return getJavaFXAntJar();
+        }
+        try{
+            URL patchedJfxAntJar = MonkeyPatcher.getPatchedJfxAntJar(project.getGradle().getGradleUserHomeDir());
+            project.getLogger().info("using patched " + ANT_JAVAFX_JAR_FILENAME + ", located at > " + patchedJfxAntJar.toExternalForm());
+            return new File(patchedJfxAntJar.toURI());
+        } catch(MalformedURLException | URISyntaxException ex){
+            throw new GradleException("Could not create patched Ant-JavaFX-JAR", ex);
+        }
+    }
+
+    private void addJavaFXAntJARToGradleBuildpath(Project project, boolean usePatchedJar, boolean usePatchedJFXAntLib) {
+        File jfxAntJar = getJavaFXAntJar();
 
         // don't use SystemClassloader or current Thread-ClassLoader, as we are not maven here ;)
         ClassLoader buildscriptClassloader = project.getBuildscript().getClassLoader();
@@ -131,16 +239,6 @@ public class JavaFXGradlePlugin implements Plugin<Project> {
 
         // add ant-javafx.jar to the classloader (using a different way as javafx-maven-plugin ;D)
         try{
-            // I'm very sorry for this ugly condition :(
-            boolean usePatchedJar = System.getProperty("os.name").toLowerCase().startsWith("windows") && isGradleDaemonMode() && (JavaDetectionTools.IS_JAVA_9 || (JavaDetectionTools.IS_JAVA_8 && JavaDetectionTools.isAtLeastOracleJavaUpdateVersion(60)));
-            boolean usePatchedJFXAntLib = project.getExtensions().getByType(JavaFXGradlePluginExtension.class).isUsePatchedJFXAntLib();
-
-            // check if patched jar is required
-            if( usePatchedJar && !usePatchedJFXAntLib ){
-                usePatchedJar = false;
-                project.getLogger().warn("You disabled the patching (by setting 'usePatchedJFXAntLib'-property to 'false' inside 'jfx'-configuration) of the " + ANT_JAVAFX_JAR_FILENAME + ", please make sure you know about the consequences.");
-            }
-
             // check if already added! otherwise we would include/patch that file multiple times :(
             List<URL> loadedAntJavaFXLibs = Arrays.asList(sysloader.getURLs()).stream().filter(loadedURL -> {
                 return loadedURL.toExternalForm().endsWith(ANT_JAVAFX_JAR_FILENAME);
@@ -155,7 +253,7 @@ public class JavaFXGradlePlugin implements Plugin<Project> {
             if( alreadyLoaded == false ){
                 List<URL> antJarList = new ArrayList<>();
                 if( usePatchedJar ){
-                    URL patchedJfxAntJar = MonkeyPatcher.getPatchedJfxAntJar();
+                    URL patchedJfxAntJar = MonkeyPatcher.getPatchedJfxAntJar(project.getGradle().getGradleUserHomeDir());
                     antJarList.add(patchedJfxAntJar);
                     project.getLogger().info("using patched " + ANT_JAVAFX_JAR_FILENAME + ", located at > " + patchedJfxAntJar.toExternalForm());
                 } else {
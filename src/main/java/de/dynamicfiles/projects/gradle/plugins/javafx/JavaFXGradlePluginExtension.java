@@ -15,15 +15,27 @@
  */
 package de.dynamicfiles.projects.gradle.plugins.javafx;
 
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.gradle.api.GradleException;
 
 /**
  * Contains all settings used inside "jfx"-configuration block inside your build-script
  *
  * @author Danny Althoff
  */
-public class JavaFXGradlePluginExtension {
+public class JavaFXGradlePluginExtension implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     // AbstractJfxToolsMojo
     private boolean verbose = false;
@@ -41,12 +53,20 @@ public class JavaFXGradlePluginExtension {
     private boolean allPermissions = false;
     private Map<String, String> manifestAttributes = null;
     private boolean addPackagerJar = true;
-    // private List<Dependency> classpathExcludes = new ArrayList<>();
-    // private boolean classpathExcludesTransient = true;
+    private List<String> classpathExcludes = null;
+    private boolean classpathExcludesTransient = true;
+    private List<String> classpathIncludes = null;
     private boolean copyAdditionalAppResourcesToJar = false;
     private boolean skipCopyingDependencies = false;
     private boolean useLibFolderContentForManifestClasspath = false;
     private String fixedManifestClasspath = null;
+    private String dependencyStagingStrategy = "copy";
+    private boolean syncLibFolder = false;
+    private boolean reproducibleJar = false;
+    private int jarCompressionLevel = -1;
+    private boolean generateJarIndex = false;
+    private String startupClassList = null;
+    private boolean separateStartupJar = false;
 
     // NativeMojo
     private String identifier = null;
@@ -102,12 +122,75 @@ public class JavaFXGradlePluginExtension {
 
     private List<String> runJavaParameters = null;
 
+    // class-data-sharing (not present on javafx-maven-plugin)
+    private String cdsOutputDir = "build/jfx/cds";
+    private String cdsArchiveName = "app-cds.jsa";
+    private long cdsTrainingRunTimeout = 0;
+    private boolean useCDSArchive = false;
+
+    // worker isolation (not present on javafx-maven-plugin)
+    private String workerIsolation = "none";
+    private String workerMaxHeapSize = null;
+
+    // native bundling (not present on javafx-maven-plugin)
+    private int nativeBundlerParallelism = 1;
+    private boolean reuseNativeAppImage = false;
+    private boolean incrementalNativeAppImage = false;
+    private boolean useNativeBundleCache = false;
+    private String nativeBundleCacheDir = null;
+    private int nativeBundleCacheRetentionDays = 30;
+    private String nativeBundlesOutputDir = "build/jfx/native-bundles";
+    private boolean aggregateNativeBundlerTasks = false;
+
     // generic settings (not present on javafx-maven-plugin)
     private String alternativePathToJarFile = null;
     private boolean usePatchedJFXAntLib = true;
     @Deprecated
     private boolean checkForAbsolutePaths = true;
 
+    /**
+     * Gradle decorates the extension-instance, which makes it not serializable, so copy all settings into a plain instance.
+     * Lists and maps are copied too, so later changes of the "jfx"-configuration do not change the copy. Paths (like
+     * icons of file associations) are not serializable, so they are copied as files.
+     */
+    public JavaFXGradlePluginExtension copy() {
+        JavaFXGradlePluginExtension copy = new JavaFXGradlePluginExtension();
+        for( Field field : JavaFXGradlePluginExtension.class.getDeclaredFields() ){
+            if( Modifier.isStatic(field.getModifiers()) ){
+                continue;
+            }
+            field.setAccessible(true);
+            try{
+                field.set(copy, deepCopy(field.get(this)));
+            } catch(IllegalAccessException ex){
+                throw new GradleException("Couldn't copy jfx-configuration", ex);
+            }
+        }
+        return copy;
+    }
+
+    private static Object deepCopy(Object value) {
+        if( value instanceof Path ){
+            return ((Path) value).toAbsolutePath().toFile();
+        }
+        if( value instanceof Map ){
+            Map<Object, Object> mapCopy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, mapValue) -> mapCopy.put(key, deepCopy(mapValue)));
+            return mapCopy;
+        }
+        if( value instanceof Set ){
+            Set<Object> setCopy = new LinkedHashSet<>();
+            ((Set<?>) value).forEach(setValue -> setCopy.add(deepCopy(setValue)));
+            return setCopy;
+        }
+        if( value instanceof Collection ){
+            List<Object> listCopy = new ArrayList<>();
+            ((Collection<?>) value).forEach(listValue -> listCopy.add(deepCopy(listValue)));
+            return listCopy;
+        }
+        return value;
+    }
+
     /*
      * generated methods below
      */
@@ -215,6 +298,30 @@ public class JavaFXGradlePluginExtension {
         this.addPackagerJar = addPackagerJar;
     }
 
+    public List<String> getClasspathExcludes() {
+        return classpathExcludes;
+    }
+
+    public void setClasspathExcludes(List<String> classpathExcludes) {
+        this.classpathExcludes = classpathExcludes;
+    }
+
+    public boolean isClasspathExcludesTransient() {
+        return classpathExcludesTransient;
+    }
+
+    public void setClasspathExcludesTransient(boolean classpathExcludesTransient) {
+        this.classpathExcludesTransient = classpathExcludesTransient;
+    }
+
+    public List<String> getClasspathIncludes() {
+        return classpathIncludes;
+    }
+
+    public void setClasspathIncludes(List<String> classpathIncludes) {
+        this.classpathIncludes = classpathIncludes;
+    }
+
     public boolean isCopyAdditionalAppResourcesToJar() {
         return copyAdditionalAppResourcesToJar;
     }
@@ -247,6 +354,62 @@ public class JavaFXGradlePluginExtension {
         this.fixedManifestClasspath = fixedManifestClasspath;
     }
 
+    public String getDependencyStagingStrategy() {
+        return dependencyStagingStrategy;
+    }
+
+    public void setDependencyStagingStrategy(String dependencyStagingStrategy) {
+        this.dependencyStagingStrategy = dependencyStagingStrategy;
+    }
+
+    public boolean isSyncLibFolder() {
+        return syncLibFolder;
+    }
+
+    public void setSyncLibFolder(boolean syncLibFolder) {
+        this.syncLibFolder = syncLibFolder;
+    }
+
+    public boolean isReproducibleJar() {
+        return reproducibleJar;
+    }
+
+    public void setReproducibleJar(boolean reproducibleJar) {
+        this.reproducibleJar = reproducibleJar;
+    }
+
+    public int getJarCompressionLevel() {
+        return jarCompressionLevel;
+    }
+
+    public void setJarCompressionLevel(int jarCompressionLevel) {
+        this.jarCompressionLevel = jarCompressionLevel;
+    }
+
+    public boolean isGenerateJarIndex() {
+        return generateJarIndex;
+    }
+
+    public void setGenerateJarIndex(boolean generateJarIndex) {
+        this.generateJarIndex = generateJarIndex;
+    }
+
+    public String getStartupClassList() {
+        return startupClassList;
+    }
+
+    public void setStartupClassList(String startupClassList) {
+        this.startupClassList = startupClassList;
+    }
+
+    public boolean isSeparateStartupJar() {
+        return separateStartupJar;
+    }
+
+    public void setSeparateStartupJar(boolean separateStartupJar) {
+        this.separateStartupJar = separateStartupJar;
+    }
+
     public String getIdentifier() {
         return identifier;
     }
@@ -638,4 +801,116 @@ public class JavaFXGradlePluginExtension {
     public void setRunJavaParameters(List<String> runJavaParameters) {
         this.runJavaParameters = runJavaParameters;
     }
+
+    public String getCdsOutputDir() {
+        return cdsOutputDir;
+    }
+
+    public void setCdsOutputDir(String cdsOutputDir) {
+        this.cdsOutputDir = cdsOutputDir;
+    }
+
+    public String getCdsArchiveName() {
+        return cdsArchiveName;
+    }
+
+    public void setCdsArchiveName(String cdsArchiveName) {
+        this.cdsArchiveName = cdsArchiveName;
+    }
+
+    public long getCdsTrainingRunTimeout() {
+        return cdsTrainingRunTimeout;
+    }
+
+    public void setCdsTrainingRunTimeout(long cdsTrainingRunTimeout) {
+        this.cdsTrainingRunTimeout = cdsTrainingRunTimeout;
+    }
+
+    public boolean isUseCDSArchive() {
+        return useCDSArchive;
+    }
+
+    public void setUseCDSArchive(boolean useCDSArchive) {
+        this.useCDSArchive = useCDSArchive;
+    }
+
+    public String getWorkerIsolation() {
+        return workerIsolation;
+    }
+
+    public void setWorkerIsolation(String workerIsolation) {
+        this.workerIsolation = workerIsolation;
+    }
+
+    public String getWorkerMaxHeapSize() {
+        return workerMaxHeapSize;
+    }
+
+    public void setWorkerMaxHeapSize(String workerMaxHeapSize) {
+        this.workerMaxHeapSize = workerMaxHeapSize;
+    }
+
+    public int getNativeBundlerParallelism() {
+        return nativeBundlerParallelism;
+    }
+
+    public void setNativeBundlerParallelism(int nativeBundlerParallelism) {
+        this.nativeBundlerParallelism = nativeBundlerParallelism;
+    }
+
+    public boolean isReuseNativeAppImage() {
+        return reuseNativeAppImage;
+    }
+
+    public void setReuseNativeAppImage(boolean reuseNativeAppImage) {
+        this.reuseNativeAppImage = reuseNativeAppImage;
+    }
+
+    public boolean isIncrementalNativeAppImage() {
+        return incrementalNativeAppImage;
+    }
+
+    public void setIncrementalNativeAppImage(boolean incrementalNativeAppImage) {
+        this.incrementalNativeAppImage = incrementalNativeAppImage;
+    }
+
+    public boolean isUseNativeBundleCache() {
+        return useNativeBundleCache;
+    }
+
+    public void setUseNativeBundleCache(boolean useNativeBundleCache) {
+        this.useNativeBundleCache = useNativeBundleCache;
+    }
+
+    public String getNativeBundleCacheDir() {
+        return nativeBundleCacheDir;
+    }
+
+    public void setNativeBundleCacheDir(String nativeBundleCacheDir) {
+        this.nativeBundleCacheDir = nativeBundleCacheDir;
+    }
+
+    public int getNativeBundleCacheRetentionDays() {
+        return nativeBundleCacheRetentionDays;
+    }
+
+    public void setNativeBundleCacheRetentionDays(int nativeBundleCacheRetentionDays) {
+        this.nativeBundleCacheRetentionDays = nativeBundleCacheRetentionDays;
+    }
+
+    public String getNativeBundlesOutputDir() {
+        return nativeBundlesOutputDir;
+    }
+
+    public void setNativeBundlesOutputDir(String nativeBundlesOutputDir) {
+        this.nativeBundlesOutputDir = nativeBundlesOutputDir;
+    }
+
+    public boolean isAggregateNativeBundlerTasks() {
+        return aggregateNativeBundlerTasks;
+    }
+
+    public void setAggregateNativeBundlerTasks(boolean aggregateNativeBundlerTasks) {
+        this.aggregateNativeBundlerTasks = aggregateNativeBundlerTasks;
+    }
 }
@@ -16,12 +16,15 @@
 package de.dynamicfiles.projects.gradle.plugins.javafx.dto;
 
 import java.io.File;
+import java.io.Serializable;
 
 /**
  *
  * @author Danny Althoff
  */
-public class FileAssociation {
+public class FileAssociation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String description = null;
     private String extensions = null;
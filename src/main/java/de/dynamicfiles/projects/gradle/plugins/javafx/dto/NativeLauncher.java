@@ -16,6 +16,7 @@
 package de.dynamicfiles.projects.gradle.plugins.javafx.dto;
 
 import java.io.File;
+import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 
@@ -24,7 +25,9 @@ import java.util.Map;
  *
  * @author Danny Althoff
  */
-public class NativeLauncher {
+public class NativeLauncher implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * This has to be different than original appname, as all existing parameter are copied and this would be overwritten.
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PackagerLogger;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxWorkerContext;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxWorkerIsolation;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.AbstractTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.bundling.Jar;
+
+/**
+ * Base for all tasks which need to describe their inputs and outputs using the "jfx"-configuration.
+ *
+ * @author Danny Althoff
+ */
+public abstract class JfxAbstractTask extends AbstractTask {
+
+    private JfxWorkerContext workerContext = null;
+    private JfxWorkerIsolation workerIsolation = null;
+    private File deployDir = null;
+    private File javaFXAntJar = null;
+
+    // captured when the task-graph is ready, so neither the inputs nor the task-action are accessing the project
+    private JavaFXGradlePluginExtension configuration = null;
+    private File projectDir = null;
+    private File gradleUserHomeDir = null;
+    private File jarArchivePath = null;
+
+    /**
+     * The packager is part of the JDK, so the result might differ when using another java version.
+     */
+    @Input
+    public String getJavaRuntimeVersion() {
+        return System.getProperty("java.runtime.version");
+    }
+
+    /**
+     * @return the captured "jfx"-configuration, or the live one while configuring
+     */
+    protected JavaFXGradlePluginExtension getExtension() {
+        if( configuration != null ){
+            return configuration;
+        }
+        return getProject().getExtensions().getByType(JavaFXGradlePluginExtension.class);
+    }
+
+    protected File getGradleUserHomeDir() {
+        if( gradleUserHomeDir != null ){
+            return gradleUserHomeDir;
+        }
+        return getProject().getGradle().getGradleUserHomeDir();
+    }
+
+    protected File getProjectDir() {
+        if( projectDir != null ){
+            return projectDir;
+        }
+        return getProject().getProjectDir();
+    }
+
+    /**
+     * @return the archive created by the jar-task of the project
+     */
+    protected File getJarArchivePath() {
+        if( jarArchivePath != null ){
+            return jarArchivePath;
+        }
+        return ((Jar) getProject().getTasks().getByName("jar")).getArchivePath();
+    }
+
+    protected File getAbsoluteOrProjectRelativeFile(String potentialAbsoluteFilePath) {
+        File file = new File(potentialAbsoluteFilePath);
+        if( file.isAbsolute() && getExtension().isCheckForAbsolutePaths() ){
+            return file;
+        }
+        return new File(getProjectDir(), potentialAbsoluteFilePath);
+    }
+
+    /**
+     * @return the file as list (for using it as input-files), or an empty list when not existing
+     */
+    protected List<File> getExistingFiles(String potentialAbsoluteFilePath) {
+        if( potentialAbsoluteFilePath == null ){
+            return Collections.emptyList();
+        }
+        File file = getAbsoluteOrProjectRelativeFile(potentialAbsoluteFilePath);
+        if( !file.exists() ){
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(file);
+    }
+
+    /**
+     * Captures a copy of the "jfx"-configuration and everything else the inputs and the task-action are reading
+     * from the project. The configuration is complete at this point, as the task-graph is ready.
+     */
+    protected void captureConfiguration() {
+        projectDir = getProject().getProjectDir();
+        gradleUserHomeDir = getProject().getGradle().getGradleUserHomeDir();
+        jarArchivePath = ((Jar) getProject().getTasks().getByName("jar")).getArchivePath();
+        configuration = getProject().getExtensions().getByType(JavaFXGradlePluginExtension.class).copy();
+    }
+
+    /**
+     * Captures everything the inputs and the worker need from the project, called when the task-graph is ready.
+     * This way neither the inputs nor the task-action itself need to access the project.
+     */
+    public void prepareWorkerContext() {
+        captureConfiguration();
+        JavaFXGradlePluginExtension ext = getExtension();
+        workerContext = createWorkerContext();
+        workerIsolation = new JfxWorkerIsolation(ext.getWorkerIsolation(), ext.getWorkerMaxHeapSize());
+        if( supportsWorkerIsolation() && workerIsolation.isEnabled() && javaFXAntJar != null ){
+            workerIsolation.prepare(getServices());
+        }
+        deployDir = ext.getDeployDir() == null ? null : getAbsoluteOrProjectRelativeFile(ext.getDeployDir());
+    }
+
+    protected JfxWorkerContext createWorkerContext() {
+        JfxWorkerContext context = new JfxWorkerContext(getExtension(), getProjectDir(), getTemporaryDir(), getJarArchivePath(), getLogger());
+        context.setGradleUserHomeDir(getGradleUserHomeDir());
+        return context;
+    }
+
+    protected JfxWorkerContext getWorkerContext() {
+        if( workerContext == null ){
+            throw new GradleException("Task " + getName() + " was not prepared while creating the task-graph, please do not execute it directly.");
+        }
+        return workerContext;
+    }
+
+    /**
+     * Location of the ant-javafx.jar to use when running the worker isolated, has to be set before preparing the worker-context.
+     */
+    public void setJavaFXAntJar(File javaFXAntJar) {
+        this.javaFXAntJar = javaFXAntJar;
+    }
+
+    /**
+     * @return true when the worker of this task can run via the worker-API of gradle
+     */
+    public boolean supportsWorkerIsolation() {
+        return false;
+    }
+
+    /**
+     * @return the name of the worker to run when running isolated
+     */
+    protected String getWorkerName() {
+        return getName();
+    }
+
+    /**
+     * Runs the worker directly, or submits it to the worker-API when worker-isolation is configured.
+     */
+    protected void executeWorker(Consumer<JfxWorkerContext> worker) {
+        JfxWorkerContext context = getWorkerContext();
+        if( !workerIsolation.isPrepared() ){
+            try{
+                worker.accept(context);
+            } finally{
+                // worker-threads of gradle are reused, so do not keep the logger of this task
+                PackagerLogger.detach();
+            }
+            return;
+        }
+        List<File> classpath = new ArrayList<>();
+        classpath.add(javaFXAntJar);
+        if( deployDir != null && deployDir.exists() ){
+            classpath.add(deployDir);
+        }
+        getLogger().info("Running " + getName() + " isolated (" + workerIsolation.getIsolation() + ")");
+        workerIsolation.submit(getWorkerName(), context, classpath);
+    }
+}
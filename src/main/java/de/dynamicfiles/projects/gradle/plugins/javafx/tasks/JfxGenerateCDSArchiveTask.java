@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxGenerateCDSArchiveWorker;
+import java.io.File;
+import java.util.List;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Declares its inputs and outputs, so the application only gets started again when the JavaFX-jar or its
+ * dependencies have changed. The archive is only valid for the JDK it was created with.
+ *
+ * @author Danny Althoff
+ */
+public class JfxGenerateCDSArchiveTask extends JfxAbstractTask {
+
+    public static final String JFX_TASK_NAME = "jfxGenerateCDSArchive";
+
+    @TaskAction
+    public void jfxgeneratecdsarchive() {
+        executeWorker(workerContext -> new JfxGenerateCDSArchiveWorker().jfxgeneratecdsarchive(workerContext));
+    }
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public File getJfxAppOutputDir() {
+        return getAbsoluteOrProjectRelativeFile(getExtension().getJfxAppOutputDir());
+    }
+
+    @Input
+    public String getJfxMainAppJarName() {
+        return getExtension().getJfxMainAppJarName();
+    }
+
+    @Input
+    public String getCdsArchiveName() {
+        return getExtension().getCdsArchiveName();
+    }
+
+    @Input
+    public long getCdsTrainingRunTimeout() {
+        return getExtension().getCdsTrainingRunTimeout();
+    }
+
+    @Input
+    @Optional
+    public String getRunJavaParameter() {
+        return getExtension().getRunJavaParameter();
+    }
+
+    @Input
+    @Optional
+    public List<String> getRunJavaParameters() {
+        return getExtension().getRunJavaParameters();
+    }
+
+    @Input
+    @Optional
+    public String getRunAppParameter() {
+        return getExtension().getRunAppParameter();
+    }
+
+    @OutputDirectory
+    public File getCdsOutputDir() {
+        return getAbsoluteOrProjectRelativeFile(getExtension().getCdsOutputDir());
+    }
+}
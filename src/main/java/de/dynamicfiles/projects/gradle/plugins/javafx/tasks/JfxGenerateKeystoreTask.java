@@ -16,20 +16,19 @@
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
 
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxGenerateKeystoreWorker;
-import org.gradle.api.internal.AbstractTask;
 import org.gradle.api.tasks.TaskAction;
 
 /**
  *
  * @author Danny Althoff
  */
-public class JfxGenerateKeystoreTask extends AbstractTask {
+public class JfxGenerateKeystoreTask extends JfxAbstractTask {
 
     public static final String JFX_TASK_NAME = "jfxGenerateKeyStore";
 
     @TaskAction
     public void jfxgeneratekeystore() {
-        new JfxGenerateKeystoreWorker().jfxgeneratekeystore(this.getProject());
+        executeWorker(workerContext -> new JfxGenerateKeystoreWorker().jfxgeneratekeystore(workerContext));
     }
 
 }
@@ -15,22 +15,215 @@
  */
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
 
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.DependencyCollector;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxJarWorker;
-import org.gradle.api.internal.AbstractTask;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxWorkerContext;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 
 /**
+ * All inputs and outputs are read from the "jfx"-configuration, this makes it possible for gradle to skip
+ * this task when nothing has changed since the last run, or to take the result from the build-cache.
  *
  * @author Danny Althoff
  */
-public class JfxJarTask extends AbstractTask {
+@CacheableTask
+public class JfxJarTask extends JfxAbstractTask {
 
     public static final String JFX_TASK_NAME = "jfxJar";
 
+    private FileCollection runtimeFiles = null;
+
     @TaskAction
     public void jfxjar() {
-        new JfxJarWorker().jfxjar(this.getProject());
+        executeWorker(workerContext -> new JfxJarWorker().jfxjar(workerContext));
+
+    }
+
+    @Override
+    public boolean supportsWorkerIsolation() {
+        return true;
+    }
+
+    @Override
+    protected void captureConfiguration() {
+        super.captureConfiguration();
+        runtimeFiles = getRuntimeFiles();
+    }
+
+    @Override
+    protected JfxWorkerContext createWorkerContext() {
+        JfxWorkerContext workerContext = super.createWorkerContext();
+        if( !getExtension().isSkipCopyingDependencies() ){
+            // resolving configurations requires the project, so do it before executing
+            workerContext.setDependencies(new DependencyCollector(getLogger()).collectDependencies(getProject(), getExtension()));
+        }
+        return workerContext;
+    }
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public File getJarArchive() {
+        // same selection as done inside the worker
+        if( getExtension().getAlternativePathToJarFile() != null ){
+            File alternativeJarFile = getAbsoluteOrProjectRelativeFile(getExtension().getAlternativePathToJarFile());
+            if( alternativeJarFile.exists() ){
+                return alternativeJarFile;
+            }
+        }
+        return getJarArchivePath();
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public FileCollection getRuntimeFiles() {
+        // filenames are important, as they are used for the manifest-classpath
+        if( runtimeFiles != null ){
+            return runtimeFiles;
+        }
+        return getProject().getConfigurations().getByName("compile").plus(getProject().getConfigurations().getByName("runtime"));
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public List<File> getAdditionalAppResources() {
+        if( !getExtension().isCopyAdditionalAppResourcesToJar() ){
+            return Collections.emptyList();
+        }
+        return getExistingFiles(getExtension().getAdditionalAppResources());
+    }
+
+    @Input
+    @Optional
+    public Map<String, String> getManifestAttributes() {
+        return getExtension().getManifestAttributes();
+    }
+
+    @Input
+    @Optional
+    public String getMainClass() {
+        return getExtension().getMainClass();
+    }
+
+    @Input
+    @Optional
+    public String getPreLoader() {
+        return getExtension().getPreLoader();
+    }
+
+    @Input
+    public boolean isCss2bin() {
+        return getExtension().isCss2bin();
+    }
+
+    @Input
+    public String getLibFolderName() {
+        return getExtension().getLibFolderName();
+    }
+
+    @Input
+    public String getJfxMainAppJarName() {
+        return getExtension().getJfxMainAppJarName();
+    }
+
+    @Input
+    public boolean isUpdateExistingJar() {
+        return getExtension().isUpdateExistingJar();
+    }
 
+    @Input
+    public boolean isAllPermissions() {
+        return getExtension().isAllPermissions();
     }
 
+    @Input
+    public boolean isAddPackagerJar() {
+        return getExtension().isAddPackagerJar();
+    }
+
+    @Input
+    public boolean isSkipCopyingDependencies() {
+        return getExtension().isSkipCopyingDependencies();
+    }
+
+    @Input
+    public boolean isUseLibFolderContentForManifestClasspath() {
+        return getExtension().isUseLibFolderContentForManifestClasspath();
+    }
+
+    @Input
+    @Optional
+    public String getFixedManifestClasspath() {
+        return getExtension().getFixedManifestClasspath();
+    }
+
+    @Input
+    public String getDependencyStagingStrategy() {
+        return getExtension().getDependencyStagingStrategy();
+    }
+
+    @Input
+    public boolean isSyncLibFolder() {
+        return getExtension().isSyncLibFolder();
+    }
+
+    @Input
+    public boolean isReproducibleJar() {
+        return getExtension().isReproducibleJar();
+    }
+
+    @Input
+    public int getJarCompressionLevel() {
+        return getExtension().getJarCompressionLevel();
+    }
+
+    @Input
+    public boolean isGenerateJarIndex() {
+        return getExtension().isGenerateJarIndex();
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public List<File> getStartupClassList() {
+        return getExistingFiles(getExtension().getStartupClassList());
+    }
+
+    @Input
+    public boolean isSeparateStartupJar() {
+        return getExtension().isSeparateStartupJar();
+    }
+
+    @Input
+    @Optional
+    public List<String> getClasspathExcludes() {
+        return getExtension().getClasspathExcludes();
+    }
+
+    @Input
+    public boolean isClasspathExcludesTransient() {
+        return getExtension().isClasspathExcludesTransient();
+    }
+
+    @Input
+    @Optional
+    public List<String> getClasspathIncludes() {
+        return getExtension().getClasspathIncludes();
+    }
+
+    @OutputDirectory
+    public File getJfxAppOutputDir() {
+        return getAbsoluteOrProjectRelativeFile(getExtension().getJfxAppOutputDir());
+    }
 }
@@ -16,19 +16,18 @@
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
 
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxListBundlersWorker;
-import org.gradle.api.internal.AbstractTask;
 import org.gradle.api.tasks.TaskAction;
 
 /**
  *
  * @author Danny Althoff
  */
-public class JfxListBundlersTask extends AbstractTask {
+public class JfxListBundlersTask extends JfxAbstractTask {
 
     public static final String JFX_TASK_NAME = "jfxListBundlers";
 
     @TaskAction
     public void jfxlistbundlers() {
-        new JfxListBundlersWorker().jfxlistbundlers(this.getProject());
+        executeWorker(workerContext -> new JfxListBundlersWorker().jfxlistbundlers(workerContext));
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxWorkerContext;
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+
+/**
+ * Runs only one bundler, writing into its own folder (nativeBundlesOutputDir/bundler-ID), so every bundler can be
+ * executed and cached on its own. Installer bundlers can reuse the application image created by the task of the
+ * application bundler.
+ *
+ * @author Danny Althoff
+ */
+@CacheableTask
+public class JfxNativeBundlerTask extends JfxNativeTask {
+
+    public static final String JFX_TASK_NAME_PREFIX = JfxNativeTask.JFX_TASK_NAME + "_";
+
+    private String bundlerId = null;
+    private String imageBundlerId = null;
+
+    /**
+     * Bundlers of the JDK for the current platform (without the custom bundlers, as these are only known when
+     * loading the packager), mapped to the bundler creating their application image.
+     */
+    public static Map<String, String> getPlatformBundlerIds() {
+        String osName = System.getProperty("os.name").toLowerCase();
+        Map<String, String> bundlerIds = new LinkedHashMap<>();
+        if( osName.startsWith("windows") ){
+            bundlerIds.put("windows.app", null);
+            bundlerIds.put("exe", "windows.app");
+            bundlerIds.put("msi", "windows.app");
+            bundlerIds.put("windows.service", null);
+        } else if( osName.contains("os x") ){
+            bundlerIds.put("mac.app", null);
+            bundlerIds.put("mac.appStore", null);
+            bundlerIds.put("dmg", null);
+            bundlerIds.put("pkg", null);
+            bundlerIds.put("mac.daemon", null);
+        } else if( osName.startsWith("linux") ){
+            bundlerIds.put("linux.app", null);
+            bundlerIds.put("deb", "linux.app");
+            bundlerIds.put("rpm", "linux.app");
+        }
+        bundlerIds.put("jnlp", null);
+        return bundlerIds;
+    }
+
+    /**
+     * @return names of the tasks running the requested bundler (or all of them), empty when the requested bundler
+     * has no task of its own (like custom bundlers)
+     */
+    public static List<String> getAggregatedTaskNames(String requestedBundler, boolean skipJNLP) {
+        return getPlatformBundlerIds().keySet().stream()
+                .filter(bundlerId -> requestedBundler == null || "ALL".equalsIgnoreCase(requestedBundler) || requestedBundler.equalsIgnoreCase(bundlerId))
+                .filter(bundlerId -> !skipJNLP || !"jnlp".equals(bundlerId))
+                .map(bundlerId -> JFX_TASK_NAME_PREFIX + bundlerId)
+                .collect(Collectors.toList());
+    }
+
+    @Input
+    public String getBundlerId() {
+        return bundlerId;
+    }
+
+    public void setBundlerId(String bundlerId) {
+        this.bundlerId = bundlerId;
+    }
+
+    /**
+     * @return the bundler creating the application image for this bundler, or null when not reusing any image
+     */
+    @Input
+    @Optional
+    public String getImageBundlerId() {
+        if( !getExtension().isReuseNativeAppImage() ){
+            return null;
+        }
+        return imageBundlerId;
+    }
+
+    public void setImageBundlerId(String imageBundlerId) {
+        this.imageBundlerId = imageBundlerId;
+    }
+
+    @Override
+    @Input
+    @Optional
+    public String getBundler() {
+        return bundlerId;
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public List<File> getAppImage() {
+        if( getImageBundlerId() == null ){
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(getAppImagesDir());
+    }
+
+    /*
+     * Not inside the native output directory, as jfxNative has that one as its output.
+     */
+    @Override
+    @OutputDirectory
+    public File getNativeOutputDir() {
+        return new File(getAbsoluteOrProjectRelativeFile(getExtension().getNativeBundlesOutputDir()), bundlerId);
+    }
+
+    @Override
+    protected boolean shouldAggregateBundlerTasks() {
+        return false;
+    }
+
+    @Override
+    protected JfxWorkerContext createWorkerContext() {
+        JfxWorkerContext context = super.createWorkerContext();
+        // the context has its own copy of the "jfx"-configuration
+        context.getExtension().setBundler(bundlerId);
+        context.getExtension().setNativeOutputDir(getExtension().getNativeBundlesOutputDir() + "/" + bundlerId);
+        if( getImageBundlerId() != null ){
+            context.setAppImagesDir(getAppImagesDir());
+        }
+        return context;
+    }
+
+    private File getAppImagesDir() {
+        return new File(getAbsoluteOrProjectRelativeFile(getExtension().getNativeBundlesOutputDir()), getImageBundlerId());
+    }
+}
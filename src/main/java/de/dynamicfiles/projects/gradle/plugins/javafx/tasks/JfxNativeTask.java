@@ -15,20 +15,365 @@
  */
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
 
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.LocalChecksumKey;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxNativeWorker;
-import org.gradle.api.internal.AbstractTask;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 
 /**
+ * All inputs and outputs are read from the "jfx"-configuration. Files referenced inside bundleArguments,
+ * secondaryLaunchers or fileAssociations are only tracked by their filename and content, making it possible
+ * to take the result from the build-cache even when the project is located somewhere else.
  *
  * @author Danny Althoff
  */
-public class JfxNativeTask extends AbstractTask {
+@CacheableTask
+public class JfxNativeTask extends JfxAbstractTask {
 
     public static final String JFX_TASK_NAME = "jfxNative";
 
+    private static final String DEFAULT_KEY_STORE_PASSWORD = "password";
+
     @TaskAction
     public void jfxnative() {
-        new JfxNativeWorker().jfxnative(this.getProject());
+        if( shouldAggregateBundlerTasks() ){
+            getLogger().info("Bundling was done by the tasks per bundler.");
+            setDidWork(false);
+            return;
+        }
+        executeWorker(workerContext -> new JfxNativeWorker().jfxnative(workerContext));
+    }
+
+    @Override
+    public boolean supportsWorkerIsolation() {
+        return true;
+    }
+
+    /**
+     * @return true, when the tasks per bundler are doing the work (custom bundlers still run inside this task)
+     */
+    protected boolean shouldAggregateBundlerTasks() {
+        return getExtension().isAggregateNativeBundlerTasks() && !JfxNativeBundlerTask.getAggregatedTaskNames(getExtension().getBundler(), getExtension().isSkipJNLP()).isEmpty();
+    }
+
+    /**
+     * The tasks per bundler are using the same worker.
+     */
+    @Override
+    protected String getWorkerName() {
+        return JFX_TASK_NAME;
+    }
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public File getJfxAppOutputDir() {
+        return getAbsoluteOrProjectRelativeFile(getExtension().getJfxAppOutputDir());
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public List<File> getAdditionalAppResources() {
+        return getExistingFiles(getExtension().getAdditionalAppResources());
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public List<File> getAdditionalBundlerResources() {
+        return getExistingFiles(getExtension().getAdditionalBundlerResources());
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public List<File> getDeployDir() {
+        // contains icons and other files for the bundlers
+        return getExistingFiles(getExtension().getDeployDir());
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public List<File> getKeyStore() {
+        return getExistingFiles(getExtension().getKeyStore());
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public List<File> getCdsArchive() {
+        if( !getExtension().isUseCDSArchive() ){
+            return Collections.emptyList();
+        }
+        return getExistingFiles(getExtension().getCdsOutputDir() + "/" + getExtension().getCdsArchiveName());
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public List<File> getReferencedFiles() {
+        List<File> referencedFiles = new ArrayList<>();
+        toRelocatableValue(getExtension().getBundleArguments(), referencedFiles);
+        toRelocatableValue(getExtension().getSecondaryLaunchers(), referencedFiles);
+        toRelocatableValue(getExtension().getFileAssociations(), referencedFiles);
+        return referencedFiles;
+    }
+
+    @Input
+    @Optional
+    public Object getBundleArguments() {
+        return toRelocatableValue(getExtension().getBundleArguments(), new ArrayList<>());
+    }
+
+    @Input
+    @Optional
+    public Object getSecondaryLaunchers() {
+        return toRelocatableValue(getExtension().getSecondaryLaunchers(), new ArrayList<>());
+    }
+
+    @Input
+    @Optional
+    public Object getFileAssociations() {
+        return toRelocatableValue(getExtension().getFileAssociations(), new ArrayList<>());
+    }
+
+    @Input
+    public String getOperatingSystem() {
+        // native bundles are platform specific
+        return System.getProperty("os.name") + " " + System.getProperty("os.arch");
+    }
+
+    @Input
+    public String getAppName() {
+        // same selection as done inside the worker
+        if( getExtension().getAppName() != null ){
+            return getExtension().getAppName();
+        }
+        String archiveName = getJarArchivePath().getName();
+        return archiveName.substring(0, archiveName.lastIndexOf("."));
+    }
+
+    @Input
+    @Optional
+    public String getMainClass() {
+        return getExtension().getMainClass();
+    }
+
+    @Input
+    public String getJfxMainAppJarName() {
+        return getExtension().getJfxMainAppJarName();
+    }
+
+    @Input
+    @Optional
+    public String getIdentifier() {
+        return getExtension().getIdentifier();
+    }
+
+    @Input
+    @Optional
+    public String getVendor() {
+        return getExtension().getVendor();
+    }
+
+    @Input
+    @Optional
+    public String getBundler() {
+        return getExtension().getBundler();
+    }
+
+    @Input
+    @Optional
+    public Map<String, String> getJvmProperties() {
+        return getExtension().getJvmProperties();
+    }
+
+    @Input
+    @Optional
+    public List<String> getJvmArgs() {
+        return getExtension().getJvmArgs();
+    }
+
+    @Input
+    @Optional
+    public Map<String, String> getUserJvmArgs() {
+        return getExtension().getUserJvmArgs();
+    }
+
+    @Input
+    @Optional
+    public List<String> getLauncherArguments() {
+        return getExtension().getLauncherArguments();
+    }
+
+    @Input
+    @Optional
+    public String getNativeReleaseVersion() {
+        return getExtension().getNativeReleaseVersion();
+    }
+
+    @Input
+    public boolean isNeedShortcut() {
+        return getExtension().isNeedShortcut();
+    }
+
+    @Input
+    public boolean isNeedMenu() {
+        return getExtension().isNeedMenu();
+    }
+
+    @Input
+    public boolean isSkipNativeLauncherWorkaround124() {
+        return getExtension().isSkipNativeLauncherWorkaround124();
+    }
+
+    @Input
+    public boolean isSkipNativeLauncherWorkaround167() {
+        return getExtension().isSkipNativeLauncherWorkaround167();
+    }
+
+    @Input
+    public boolean isSkipJNLPRessourcePathWorkaround182() {
+        return getExtension().isSkipJNLPRessourcePathWorkaround182();
+    }
+
+    @Input
+    public boolean isSkipSigningJarFilesJNLP185() {
+        return getExtension().isSkipSigningJarFilesJNLP185();
+    }
+
+    @Input
+    public boolean isSkipSizeRecalculationForJNLP185() {
+        return getExtension().isSkipSizeRecalculationForJNLP185();
+    }
+
+    @Input
+    public boolean isNoBlobSigning() {
+        return getExtension().isNoBlobSigning();
+    }
+
+    @Input
+    @Optional
+    public List<String> getCustomBundlers() {
+        return getExtension().getCustomBundlers();
+    }
+
+    @Input
+    public boolean isSkipNativeLauncherWorkaround205() {
+        return getExtension().isSkipNativeLauncherWorkaround205();
+    }
+
+    @Input
+    public boolean isSkipMacBundlerWorkaround() {
+        return getExtension().isSkipMacBundlerWorkaround();
+    }
+
+    @Input
+    public boolean isOnlyCustomBundlers() {
+        return getExtension().isOnlyCustomBundlers();
+    }
+
+    @Input
+    public boolean isSkipJNLP() {
+        return getExtension().isSkipJNLP();
+    }
+
+    @Input
+    public boolean isSkipNativeVersionNumberSanitizing() {
+        return getExtension().isSkipNativeVersionNumberSanitizing();
+    }
+
+    @Input
+    @Optional
+    public List<String> getAdditionalJarsignerParameters() {
+        return getExtension().getAdditionalJarsignerParameters();
+    }
+
+    @Input
+    public String getKeyStoreAlias() {
+        return getExtension().getKeyStoreAlias();
+    }
+
+    @Internal
+    public String getKeyStorePassword() {
+        return getExtension().getKeyStorePassword();
+    }
+
+    @Internal
+    public String getKeyPassword() {
+        return getExtension().getKeyPassword();
+    }
+
+    /**
+     * Passwords must not be part of the task-history or the build-cache, but changing them has to sign again. Using
+     * some key which never leaves this machine, the passwords can't be guessed from this checksum.
+     */
+    @Input
+    public String getKeyPasswordsChecksum() {
+        if( DEFAULT_KEY_STORE_PASSWORD.equals(getKeyStorePassword()) && getKeyPassword() == null ){
+            // keeps the build-cache usable between machines when not signing
+            return "default";
+        }
+        return LocalChecksumKey.getChecksum(getGradleUserHomeDir(), getKeyStorePassword(), getKeyPassword());
+    }
+
+    @Input
+    public boolean isUseCDSArchive() {
+        return getExtension().isUseCDSArchive();
+    }
+
+    @Input
+    public boolean isReuseNativeAppImage() {
+        return getExtension().isReuseNativeAppImage();
+    }
+
+    @Input
+    public String getKeyStoreType() {
+        return getExtension().getKeyStoreType();
+    }
+
+    @OutputDirectory
+    public File getNativeOutputDir() {
+        return getAbsoluteOrProjectRelativeFile(getExtension().getNativeOutputDir());
+    }
+
+    /*
+     * Absolute paths would make the cache-key depend on the location of the project, so all files
+     * are replaced by their filename (their content gets tracked separately).
+     */
+    private Object toRelocatableValue(Object value, List<File> referencedFiles) {
+        if( value == null ){
+            return null;
+        }
+        if( value instanceof File || value instanceof Path ){
+            File file = value instanceof Path ? ((Path) value).toFile() : (File) value;
+            referencedFiles.add(file);
+            return file.getName();
+        }
+        if( value instanceof String && !((String) value).isEmpty() && new File((String) value).exists() ){
+            // paths given as string (like icons or license-files) are used as file by the bundlers
+            return toRelocatableValue(new File((String) value), referencedFiles);
+        }
+        if( value instanceof Map ){
+            Map<String, Object> relocatableMap = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((key, mapValue) -> relocatableMap.put(String.valueOf(key), toRelocatableValue(mapValue, referencedFiles)));
+            return relocatableMap;
+        }
+        if( value instanceof Iterable ){
+            List<Object> relocatableList = new ArrayList<>();
+            ((Iterable<?>) value).forEach(listValue -> relocatableList.add(toRelocatableValue(listValue, referencedFiles)));
+            return relocatableList;
+        }
+        return String.valueOf(value);
     }
 }
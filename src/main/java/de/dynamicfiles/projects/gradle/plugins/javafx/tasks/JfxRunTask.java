@@ -16,19 +16,18 @@
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks;
 
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers.JfxRunWorker;
-import org.gradle.api.internal.AbstractTask;
 import org.gradle.api.tasks.TaskAction;
 
 /**
  *
  * @author Danny Althoff
  */
-public class JfxRunTask extends AbstractTask {
+public class JfxRunTask extends JfxAbstractTask {
 
     public static final String JFX_TASK_NAME = "jfxRun";
 
     @TaskAction
     public void jfxrun() {
-        new JfxRunWorker().jfxrun(this.getProject());
+        executeWorker(workerContext -> new JfxRunWorker().jfxrun(workerContext));
     }
 }
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import com.oracle.tools.packager.IOUtils;
+import com.oracle.tools.packager.RelativeFileSet;
+import com.oracle.tools.packager.StandardBundlerParam;
+import com.oracle.tools.packager.linux.LinuxAppBundler;
+import com.oracle.tools.packager.windows.WinAppBundler;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Every installer bundler creates its own application image, copying the whole runtime again. When the
+ * application bundler already created that image, the installers get some application bundler which reuses that
+ * image, as long as the installer does not use other parameters for its image. All files get copied (the runtime
+ * as copy-on-write clone when possible), because installers might modify them.
+ *
+ * @author Danny Althoff
+ */
+public class AppImageReuse {
+
+    /**
+     * Written next to the application image, describing the parameters used for creating it.
+     */
+    public static final String IMAGE_PARAMS_FILENAME = "app-image-params.properties";
+
+    private static final String APP_FOLDER_NAME = "app";
+    private static final String RUNTIME_FOLDER_NAME = "runtime";
+    private static final String PARAM_PREFIX = "param.";
+    private static final String RESOURCE_PREFIX = "resource.";
+    // parameters having unknown types never match
+    private static final String UNKNOWN_CHECKSUM = "unknown";
+
+    // installer bundler => application bundler creating the image
+    private static final Map<String, String> IMAGE_BUNDLER_IDS;
+
+    static {
+        Map<String, String> imageBundlerIds = new HashMap<>();
+        imageBundlerIds.put("deb", "linux.app");
+        imageBundlerIds.put("rpm", "linux.app");
+        imageBundlerIds.put("exe", "windows.app");
+        imageBundlerIds.put("msi", "windows.app");
+        IMAGE_BUNDLER_IDS = Collections.unmodifiableMap(imageBundlerIds);
+    }
+
+    // read by the application bundlers, so an installer having any of them (but the application bundler not) needs its own image
+    private static final Set<String> IMAGE_PARAM_KEYS = new HashSet<>(Arrays.asList(
+            "appName", "appVersion", "applicationClass", "mainJar", "classpath", "preloader", "identifier", "preferencesID",
+            "vendor", "copyright", "description", "splash", "singleton",
+            "jvmOptions", "jvmProperties", "userJvmOptions", "arguments", "secondaryLaunchers",
+            "runtime", "linux.runtime", "win.runtime", "icon", "icon.png", "icon.ico",
+            "commercialFeatures", "enableAppCDS", "appCDSCacheMode", "appCDSClassRoots", "appCDSGenerateCacheJvmOptions"
+    ));
+
+    // temporary folders, bundler instances and markers, which are different for every bundler without changing the image
+    private static final Set<String> IGNORED_PARAM_KEYS = new HashSet<>(Arrays.asList(
+            "buildRoot", "imagesRoot", "configRoot", "dropinResourcesRoot", "verbose", "cfgWorkaroundMarker", "cfgWorkaroundMarker.done"
+    ));
+    private static final List<String> IGNORED_PARAM_KEY_PREFIXES = Arrays.asList("linux.deb.", "linux.rpm.", "win.exe.", "win.msi.");
+
+    // application resources are compared file by file
+    private static final Set<String> RESOURCE_PARAM_KEYS = new HashSet<>(Arrays.asList(
+            StandardBundlerParam.APP_RESOURCES.getID(), StandardBundlerParam.APP_RESOURCES.getID() + "List"
+    ));
+
+    private final Map<String, AppImage> appImages = new ConcurrentHashMap<>();
+    private final Logger logger;
+
+    public AppImageReuse(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * @return the ID of the application bundler, or null when the given bundler does not create any application image
+     */
+    public static String getImageBundlerId(String installerBundlerId) {
+        return IMAGE_BUNDLER_IDS.get(installerBundlerId);
+    }
+
+    public static boolean isImageBundler(String bundlerId) {
+        return IMAGE_BUNDLER_IDS.containsValue(bundlerId);
+    }
+
+    /**
+     * @return the only application image inside the given folder, or null when there is none (or more than one)
+     */
+    public static File findAppImage(File appImagesDir) {
+        File[] appImages = appImagesDir.listFiles(candidate -> new File(candidate, APP_FOLDER_NAME).isDirectory());
+        if( appImages == null || appImages.length != 1 ){
+            return null;
+        }
+        return appImages[0];
+    }
+
+    /**
+     * @param params parameters the application bundler was executed with
+     */
+    public void imageCreated(String bundlerId, Map<String, ? super Object> params, File appImage) {
+        if( isImageBundler(bundlerId) && appImage != null && appImage.isDirectory() ){
+            appImages.put(bundlerId, new AppImage(appImage, describeParams(params), describeResources(params, appImage)));
+        }
+    }
+
+    /**
+     * Writes the description of the parameters used for creating the application image, making it possible to reuse that
+     * image from another build.
+     */
+    public void writeImageParams(String bundlerId, File imageParamsFile) {
+        AppImage appImage = appImages.get(bundlerId);
+        if( appImage == null ){
+            return;
+        }
+        Properties imageParams = new Properties();
+        appImage.params.forEach((key, description) -> imageParams.setProperty(PARAM_PREFIX + key, description));
+        appImage.resources.forEach((resource, description) -> imageParams.setProperty(RESOURCE_PREFIX + resource, description));
+        try(OutputStream imageParamsOutput = Files.newOutputStream(imageParamsFile.toPath())){
+            imageParams.store(imageParamsOutput, null);
+        } catch(IOException ex){
+            logger.warn("Couldn't write parameters of application image, it will not be reused.", ex);
+            imageParamsFile.delete();
+        }
+    }
+
+    /**
+     * Reuses some application image created by another build, when it was created using the same parameters.
+     *
+     * @param params parameters of the installer, before the bundler added its default values
+     *
+     * @return true, when that image will be reused
+     */
+    public boolean importImage(String bundlerId, File appImage, File imageParamsFile, Map<String, ? super Object> params) {
+        if( !isImageBundler(bundlerId) || appImage == null || !imageParamsFile.isFile() ){
+            return false;
+        }
+        Properties imageParams = new Properties();
+        try(InputStream imageParamsInput = Files.newInputStream(imageParamsFile.toPath())){
+            imageParams.load(imageParamsInput);
+        } catch(IOException ex){
+            logger.warn("Couldn't read parameters of application image " + appImage + ", creating a new one.", ex);
+            return false;
+        }
+        Map<String, String> describedParams = new TreeMap<>();
+        Map<String, String> describedResources = new TreeMap<>();
+        imageParams.stringPropertyNames().forEach(name -> {
+            if( name.startsWith(PARAM_PREFIX) ){
+                describedParams.put(name.substring(PARAM_PREFIX.length()), imageParams.getProperty(name));
+            } else if( name.startsWith(RESOURCE_PREFIX) ){
+                describedResources.put(name.substring(RESOURCE_PREFIX.length()), imageParams.getProperty(name));
+            }
+        });
+        AppImage importedImage = new AppImage(appImage, describedParams, describedResources);
+        String differentParam = importedImage.getDifferentParam(params);
+        if( differentParam != null ){
+            logger.info("Application image " + appImage + " was created using another value for '" + differentParam + "', creating a new one.");
+            return false;
+        }
+        appImages.put(bundlerId, importedImage);
+        return true;
+    }
+
+    /**
+     * Replaces the application bundler used by the given installer bundler, when its image already was created.
+     */
+    public void apply(String installerBundlerId, Map<String, ? super Object> paramsToBundleWith) {
+        String imageBundlerId = getImageBundlerId(installerBundlerId);
+        if( imageBundlerId == null ){
+            return;
+        }
+        AppImage appImage = appImages.get(imageBundlerId);
+        if( appImage == null ){
+            return;
+        }
+        try{
+            // string-keys of "APP_BUNDLER" inside the installer bundlers
+            switch(imageBundlerId) {
+                case "linux.app":
+                    paramsToBundleWith.put("linux.app.bundler", new ReusingLinuxAppBundler(appImage, logger));
+                    break;
+                case "windows.app":
+                    paramsToBundleWith.put("win.app.bundler", new ReusingWinAppBundler(appImage, logger));
+                    break;
+                default:
+                    return;
+            }
+        } catch(LinkageError ex){
+            // the application bundlers are not available on every JDK
+            logger.info("Could not reuse application image for bundler " + installerBundlerId + ", creating a new one.");
+        }
+    }
+
+    private static boolean isIgnoredParam(String key) {
+        return IGNORED_PARAM_KEYS.contains(key) || RESOURCE_PARAM_KEYS.contains(key) || key.endsWith(".bundler") || IGNORED_PARAM_KEY_PREFIXES.stream().anyMatch(key::startsWith);
+    }
+
+    /*
+     * Every parameter gets its own checksum, making it possible to compare only the parameters both bundlers know about.
+     */
+    private static Map<String, String> describeParams(Map<String, ? super Object> params) {
+        Map<String, String> describedParams = new TreeMap<>();
+        params.forEach((key, value) -> {
+            if( !isIgnoredParam(key) ){
+                String checksum = new BundlerParamsFingerprint().add(key, value).getChecksum();
+                describedParams.put(key, checksum == null ? UNKNOWN_CHECKSUM : checksum);
+            }
+        });
+        return describedParams;
+    }
+
+    /*
+     * Files from inside the image itself (like the fixed cfg-files of the workaround for issue 205) are already part of it.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> describeResources(Map<String, ? super Object> params, File appImage) {
+        List<RelativeFileSet> resourceSets;
+        Object resourcesList = params.get(StandardBundlerParam.APP_RESOURCES.getID() + "List");
+        if( resourcesList instanceof List ){
+            resourceSets = (List<RelativeFileSet>) resourcesList;
+        } else if( params.get(StandardBundlerParam.APP_RESOURCES.getID()) instanceof RelativeFileSet ){
+            resourceSets = Collections.singletonList((RelativeFileSet) params.get(StandardBundlerParam.APP_RESOURCES.getID()));
+        } else {
+            resourceSets = Collections.emptyList();
+        }
+        Path appImagePath = appImage.getAbsoluteFile().toPath();
+        Map<String, String> describedResources = new TreeMap<>();
+        for( RelativeFileSet resourceSet : resourceSets ){
+            if( resourceSet.getBaseDirectory().getAbsoluteFile().toPath().startsWith(appImagePath) ){
+                continue;
+            }
+            resourceSet.getIncludedFiles().forEach(includedFile -> {
+                File resourceFile = new File(resourceSet.getBaseDirectory(), includedFile);
+                // later resource-sets overwrite earlier ones
+                describedResources.put(includedFile.replace('\\', '/'), String.valueOf(new BundlerParamsFingerprint().add("file", resourceFile).getChecksum()));
+            });
+        }
+        return describedResources;
+    }
+
+    private static File copyAppImage(File appImage, File outputDirectory, Logger logger) throws IOException {
+        Path sourceFolder = appImage.toPath();
+        Path targetFolder = outputDirectory.toPath().resolve(appImage.getName());
+        Path runtimeFolder = sourceFolder.resolve(RUNTIME_FOLDER_NAME);
+        if( Files.exists(targetFolder) ){
+            IOUtils.deleteRecursive(targetFolder.toFile());
+        }
+        logger.info("Creating application image " + targetFolder + " from " + sourceFolder);
+        // hardlinks are not used, as installers might modify files of their image in-place (e.g. when signing)
+        DependencyStager runtimeStager = new DependencyStager(DependencyStager.STRATEGY_REFLINK, logger);
+        Files.walkFileTree(sourceFolder, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path subfolder, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(targetFolder.resolve(sourceFolder.relativize(subfolder)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path sourceFile, BasicFileAttributes attrs) throws IOException {
+                Path targetFile = targetFolder.resolve(sourceFolder.relativize(sourceFile));
+                if( sourceFile.startsWith(runtimeFolder) ){
+                    // copy-on-write clone, falling back to copying
+                    runtimeStager.stage(sourceFile, targetFile);
+                    return FileVisitResult.CONTINUE;
+                }
+                Files.copy(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return targetFolder.toFile();
+    }
+
+    private static File doBundleUsingAppImage(AppImage appImage, Map<String, ? super Object> p, File outputDirectory, Logger logger) {
+        String differentParam = appImage.getDifferentParam(p);
+        if( differentParam != null ){
+            logger.info("Installer uses another value for '" + differentParam + "' than application image " + appImage.image + ", creating a new one.");
+            return null;
+        }
+        try{
+            logger.info("Reusing application image " + appImage.image.getAbsolutePath());
+            return copyAppImage(appImage.image, outputDirectory, logger);
+        } catch(IOException ex){
+            logger.warn("Could not reuse application image, creating a new one.", ex);
+            return null;
+        }
+    }
+
+    private static class AppImage {
+
+        private final File image;
+        private final Map<String, String> params;
+        private final Map<String, String> resources;
+
+        AppImage(File image, Map<String, String> params, Map<String, String> resources) {
+            this.image = image;
+            this.params = params;
+            this.resources = resources;
+        }
+
+        /**
+         * @return the first parameter having another value than used for this image, or null when all are the same
+         */
+        String getDifferentParam(Map<String, ? super Object> otherParams) {
+            Map<String, String> otherDescribedParams = describeParams(otherParams);
+            for( Map.Entry<String, String> otherParam : otherDescribedParams.entrySet() ){
+                String imageParam = params.get(otherParam.getKey());
+                if( imageParam == null ){
+                    // only known by the installer
+                    if( IMAGE_PARAM_KEYS.contains(otherParam.getKey()) ){
+                        return otherParam.getKey();
+                    }
+                    continue;
+                }
+                if( UNKNOWN_CHECKSUM.equals(imageParam) || !imageParam.equals(otherParam.getValue()) ){
+                    return otherParam.getKey();
+                }
+            }
+            if( !resources.equals(describeResources(otherParams, image)) ){
+                return StandardBundlerParam.APP_RESOURCES.getID();
+            }
+            return null;
+        }
+    }
+
+    private static class ReusingLinuxAppBundler extends LinuxAppBundler {
+
+        private final AppImage appImage;
+        private final Logger logger;
+
+        ReusingLinuxAppBundler(AppImage appImage, Logger logger) {
+            this.appImage = appImage;
+            this.logger = logger;
+        }
+
+        @Override
+        public File doBundle(Map<String, ? super Object> p, File outputDirectory, boolean dependentTask) {
+            File reusedAppImage = doBundleUsingAppImage(appImage, p, outputDirectory, logger);
+            if( reusedAppImage == null ){
+                return super.doBundle(p, outputDirectory, dependentTask);
+            }
+            return reusedAppImage;
+        }
+    }
+
+    private static class ReusingWinAppBundler extends WinAppBundler {
+
+        private final AppImage appImage;
+        private final Logger logger;
+
+        ReusingWinAppBundler(AppImage appImage, Logger logger) {
+            this.appImage = appImage;
+            this.logger = logger;
+        }
+
+        @Override
+        public File doBundle(Map<String, ? super Object> p, File outputDirectory, boolean dependentTask) {
+            File reusedAppImage = doBundleUsingAppImage(appImage, p, outputDirectory, logger);
+            if( reusedAppImage == null ){
+                return super.doBundle(p, outputDirectory, dependentTask);
+            }
+            return reusedAppImage;
+        }
+    }
+}
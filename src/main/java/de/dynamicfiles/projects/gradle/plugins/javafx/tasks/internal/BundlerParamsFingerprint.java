@@ -0,0 +1,245 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import com.oracle.tools.packager.RelativeFileSet;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import org.gradle.api.GradleException;
+
+/**
+ * Creates some checksum of the parameters of a bundler. Files (and strings pointing to existing files) are described
+ * by their path, size and modification time (or by their name and content) instead of their string-representation,
+ * sets and maps are sorted. Values of unknown types can't be described reliably, there is no checksum then.
+ *
+ * @author Danny Althoff
+ */
+public class BundlerParamsFingerprint {
+
+    // checksums of file-contents, shared between all builds of this gradle-daemon (validated by size and modification time)
+    private static final LruCache<String, String> FILE_CHECKSUMS = new LruCache<>(4096);
+
+    private final StringBuilder description = new StringBuilder();
+    private final boolean hashFileContents;
+    private boolean describable = true;
+
+    public BundlerParamsFingerprint() {
+        this(false);
+    }
+
+    /**
+     * @param hashFileContents describe files by their name and content, making the checksum independent of their location
+     */
+    public BundlerParamsFingerprint(boolean hashFileContents) {
+        this.hashFileContents = hashFileContents;
+    }
+
+    public BundlerParamsFingerprint add(String name, Object value) {
+        description.append(name).append('=');
+        describe(value, description);
+        description.append('\n');
+        return this;
+    }
+
+    /**
+     * Adds the value as it is, even when it is the path of some existing file or directory.
+     */
+    public BundlerParamsFingerprint addText(String name, String value) {
+        description.append(name).append("=text:").append(value).append('\n');
+        return this;
+    }
+
+    /**
+     * Adds all parameters, sorted by their key.
+     */
+    public BundlerParamsFingerprint addAll(Map<String, ? super Object> params, Collection<String> ignoredKeys) {
+        new TreeMap<>(params).forEach((key, value) -> {
+            if( !ignoredKeys.contains(key) ){
+                add(key, value);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds all files inside the given directory (when existing), described by their relative path.
+     */
+    public BundlerParamsFingerprint addDirectory(String name, File directory) {
+        description.append(name).append('=');
+        if( directory != null && directory.isDirectory() ){
+            describeDirectoryContent(directory, description);
+        } else {
+            description.append("[]");
+        }
+        description.append('\n');
+        return this;
+    }
+
+    /**
+     * @return the checksum, or null when some value could not be described (having some unknown type)
+     */
+    public String getChecksum() {
+        if( !describable ){
+            return null;
+        }
+        return getChecksum(description.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void describeDirectoryContent(File directory, StringBuilder target) {
+        target.append('[');
+        try(Stream<Path> walkstream = Files.walk(directory.toPath())){
+            walkstream.filter(Files::isRegularFile)
+                    .map(file -> directory.toPath().relativize(file).toString().replace('\\', '/'))
+                    .sorted()
+                    .forEach(relativeFile -> {
+                        target.append(relativeFile).append(':');
+                        describeFile(new File(directory, relativeFile), target);
+                        target.append(',');
+                    });
+        } catch(IOException | UncheckedIOException ex){
+            throw new GradleException("Couldn't create checksum of directory " + directory, ex);
+        }
+        target.append(']');
+    }
+
+    private void describeFile(File file, StringBuilder target) {
+        if( hashFileContents ){
+            target.append("file:").append(file.getName());
+            if( file.isFile() ){
+                target.append('|').append(getContentChecksum(file));
+            }
+        } else {
+            target.append("file:").append(file.getAbsolutePath());
+            if( file.isFile() ){
+                target.append('|').append(file.length()).append('|').append(file.lastModified());
+            }
+        }
+    }
+
+    private void describe(Object value, StringBuilder target) {
+        if( value == null ){
+            target.append("null");
+        } else if( value instanceof File || value instanceof Path ){
+            File file = value instanceof Path ? ((Path) value).toFile() : (File) value;
+            describeFile(file, target);
+            if( file.isDirectory() ){
+                describeDirectoryContent(file, target);
+            }
+        } else if( value instanceof String ){
+            String text = (String) value;
+            target.append("string:").append(text);
+            // bundlers are resolving relative paths the same way
+            File file = new File(text);
+            if( !text.isEmpty() && file.exists() ){
+                target.append('|');
+                describe(file, target);
+            }
+        } else if( value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum ){
+            target.append(value);
+        } else if( value instanceof RelativeFileSet ){
+            RelativeFileSet fileSet = (RelativeFileSet) value;
+            target.append("files:");
+            if( !hashFileContents ){
+                target.append(fileSet.getBaseDirectory().getAbsolutePath());
+            }
+            target.append('[');
+            fileSet.getIncludedFiles().stream().sorted().forEach(includedFile -> {
+                target.append(includedFile.replace('\\', '/')).append(':');
+                describe(new File(fileSet.getBaseDirectory(), includedFile), target);
+                target.append(',');
+            });
+            target.append(']');
+        } else if( value instanceof Map ){
+            TreeMap<String, Object> sortedMap = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((key, mapValue) -> sortedMap.put(String.valueOf(key), mapValue));
+            target.append('{');
+            sortedMap.forEach((key, mapValue) -> {
+                target.append(key).append('=');
+                describe(mapValue, target);
+                target.append(',');
+            });
+            target.append('}');
+        } else if( value instanceof Collection || value instanceof Object[] ){
+            Collection<?> collection = value instanceof Object[] ? Arrays.asList((Object[]) value) : (Collection<?>) value;
+            List<String> elements = new ArrayList<>();
+            for( Object element : collection ){
+                StringBuilder elementDescription = new StringBuilder();
+                describe(element, elementDescription);
+                elements.add(elementDescription.toString());
+            }
+            if( value instanceof Set ){
+                elements.sort(null);
+            }
+            target.append(elements);
+        } else {
+            // the string-representation of unknown types might not change together with their content
+            describable = false;
+            target.append(value.getClass().getName());
+        }
+    }
+
+    private static String getContentChecksum(File file) {
+        String fileState = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+        String checksum = FILE_CHECKSUMS.get(fileState);
+        if( checksum != null ){
+            return checksum;
+        }
+        try(InputStream fileContent = Files.newInputStream(file.toPath())){
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int readBytes;
+            while( (readBytes = fileContent.read(buffer)) != -1 ){
+                digest.update(buffer, 0, readBytes);
+            }
+            checksum = toHex(digest.digest());
+        } catch(IOException | NoSuchAlgorithmException ex){
+            throw new GradleException("Couldn't create checksum of file " + file, ex);
+        }
+        FILE_CHECKSUMS.put(fileState, checksum);
+        return checksum;
+    }
+
+    private static String getChecksum(byte[] content) {
+        try{
+            return toHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch(NoSuchAlgorithmException ex){
+            throw new GradleException("Couldn't create checksum of bundler parameters", ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for( byte singleByte : bytes ){
+            hex.append(String.format("%02x", singleByte));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.gradle.api.GradleException;
+
+/**
+ * Runs bundlers concurrently (using a limited amount of threads), but bundlers requiring the outcome of
+ * another bundler are started after that one has finished. After the first failing bundler no other bundler
+ * gets started, but all running ones are awaited.
+ *
+ * @author Danny Althoff
+ */
+public class BundlerScheduler {
+
+    private final int parallelism;
+    private final Map<String, Set<String>> requiredBundlers = new HashMap<>();
+
+    public BundlerScheduler(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Requiring some bundler which does not run is ignored.
+     */
+    public void addDependency(String bundlerId, String requiredBundlerId) {
+        requiredBundlers.computeIfAbsent(bundlerId, id -> new LinkedHashSet<>()).add(requiredBundlerId);
+    }
+
+    public void execute(List<String> bundlerIds, Consumer<String> bundlerRunner) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        // bundlers might load resources from the deploy-directory via context-classloader
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread bundlerThread = new Thread(runnable, "jfx-bundler-" + threadCounter.incrementAndGet());
+            bundlerThread.setDaemon(true);
+            bundlerThread.setContextClassLoader(contextClassLoader);
+            return bundlerThread;
+        });
+
+        Map<String, CompletableFuture<Void>> scheduledBundlers = new HashMap<>();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        try{
+            bundlerIds.forEach(bundlerId -> schedule(bundlerId, bundlerIds, scheduledBundlers, executor, failed, bundlerRunner));
+
+            Throwable failure = null;
+            for( String bundlerId : bundlerIds ){
+                try{
+                    scheduledBundlers.get(bundlerId).join();
+                } catch(CompletionException ex){
+                    if( failure == null ){
+                        failure = ex.getCause();
+                    }
+                }
+            }
+            if( failure instanceof RuntimeException ){
+                throw (RuntimeException) failure;
+            }
+            if( failure instanceof Error ){
+                throw (Error) failure;
+            }
+            if( failure != null ){
+                throw new GradleException("Got exception while executing bundler.", failure);
+            }
+        } finally{
+            executor.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<Void> schedule(String bundlerId, List<String> bundlerIds, Map<String, CompletableFuture<Void>> scheduledBundlers, ExecutorService executor, AtomicBoolean failed, Consumer<String> bundlerRunner) {
+        CompletableFuture<Void> scheduledBundler = scheduledBundlers.get(bundlerId);
+        if( scheduledBundler != null ){
+            return scheduledBundler;
+        }
+        CompletableFuture<?>[] requiredBundlerRuns = requiredBundlers.getOrDefault(bundlerId, Collections.emptySet()).stream()
+                .filter(bundlerIds::contains)
+                .map(requiredBundlerId -> schedule(requiredBundlerId, bundlerIds, scheduledBundlers, executor, failed, bundlerRunner))
+                .toArray(CompletableFuture<?>[]::new);
+        // failing required bundlers make this one fail too, without running it
+        scheduledBundler = CompletableFuture.allOf(requiredBundlerRuns).thenRunAsync(() -> {
+            if( failed.get() ){
+                return;
+            }
+            try{
+                bundlerRunner.accept(bundlerId);
+            } catch(RuntimeException | Error ex){
+                failed.set(true);
+                throw ex;
+            }
+        }, executor);
+        scheduledBundlers.put(bundlerId, scheduledBundler);
+        return scheduledBundler;
+    }
+}
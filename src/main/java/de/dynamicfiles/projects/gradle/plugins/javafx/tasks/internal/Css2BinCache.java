@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import com.sun.javafx.tools.packager.CreateBSSParams;
+import com.sun.javafx.tools.packager.PackagerException;
+import com.sun.javafx.tools.packager.PackagerLib;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Converts all stylesheets of some jar-file into binary stylesheets, but only those which have changed
+ * since the last conversion (detected by checksum and size of the jar-entry). Conversions are running
+ * in parallel, each thread is using its own packager-instance.
+ *
+ * @author Danny Althoff
+ */
+public class Css2BinCache {
+
+    private static final String STATE_FILE_NAME = "css2bin.properties";
+
+    private final File cacheDir;
+    private final File stylesheetsDir;
+    private final File binaryStylesheetsDir;
+    private final Logger logger;
+
+    public Css2BinCache(File cacheDir, Logger logger) {
+        this.cacheDir = cacheDir;
+        this.stylesheetsDir = new File(cacheDir, "css");
+        this.binaryStylesheetsDir = new File(cacheDir, "bss");
+        this.logger = logger;
+    }
+
+    /**
+     * @return all binary stylesheets, mapped by their entry-name (sorted by name)
+     */
+    public Map<String, File> convert(File sourceJarFile) {
+        Properties previousState = readState();
+        Map<String, String> currentState = new ConcurrentHashMap<>();
+        Map<String, File> binaryStylesheets = new TreeMap<>();
+
+        try(JarFile jarFile = new JarFile(sourceJarFile)){
+            List<JarEntry> changedStylesheets = new ArrayList<>();
+            for( JarEntry entry : Collections.list(jarFile.entries()) ){
+                if( entry.isDirectory() || !entry.getName().endsWith(".css") ){
+                    continue;
+                }
+                String bssEntryName = toBinaryStylesheetName(entry.getName());
+                File binaryStylesheet = new File(binaryStylesheetsDir, bssEntryName);
+                if( !binaryStylesheet.toPath().normalize().startsWith(binaryStylesheetsDir.toPath().normalize()) ){
+                    logger.warn("Skipped stylesheet outside of JAR-file root: " + entry.getName());
+                    continue;
+                }
+                binaryStylesheets.put(bssEntryName, binaryStylesheet);
+
+                String entryState = entry.getCrc() + "|" + entry.getSize();
+                if( binaryStylesheet.exists() && entryState.equals(previousState.getProperty(entry.getName())) ){
+                    currentState.put(entry.getName(), entryState);
+                    continue;
+                }
+                changedStylesheets.add(entry);
+            }
+
+            if( !changedStylesheets.isEmpty() ){
+                logger.info("Converting " + changedStylesheets.size() + " of " + binaryStylesheets.size() + " stylesheets into binary format...");
+                convertStylesheets(jarFile, changedStylesheets, currentState);
+            } else if( !binaryStylesheets.isEmpty() ){
+                logger.info("Reusing all " + binaryStylesheets.size() + " binary stylesheets.");
+            }
+        } catch(IOException ex){
+            throw new GradleException("Couldn't convert stylesheets of " + sourceJarFile, ex);
+        }
+
+        // remove results of stylesheets which were removed
+        previousState.stringPropertyNames().stream()
+                .filter(cssEntryName -> !currentState.containsKey(cssEntryName))
+                .map(cssEntryName -> new File(binaryStylesheetsDir, toBinaryStylesheetName(cssEntryName)))
+                .filter(File::exists)
+                .forEach(File::delete);
+
+        writeState(currentState);
+        return binaryStylesheets;
+    }
+
+    private void convertStylesheets(JarFile jarFile, List<JarEntry> changedStylesheets, Map<String, String> currentState) throws IOException {
+        // extract first, as the packager requires real files
+        for( JarEntry entry : changedStylesheets ){
+            Path stylesheet = stylesheetsDir.toPath().resolve(entry.getName());
+            Files.createDirectories(stylesheet.getParent());
+            try(InputStream entryContent = jarFile.getInputStream(entry)){
+                Files.copy(entryContent, stylesheet, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), changedStylesheets.size()));
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        ThreadLocal<PackagerLib> packagerLibs = ThreadLocal.withInitial(PackagerLib::new);
+        try{
+            List<Future<?>> conversions = new ArrayList<>();
+            changedStylesheets.forEach(entry -> {
+                conversions.add(executorService.submit(() -> {
+                    CreateBSSParams createBssParams = new CreateBSSParams();
+                    createBssParams.setOutdir(binaryStylesheetsDir);
+                    createBssParams.addResource(stylesheetsDir, entry.getName());
+                    packagerLibs.get().generateBSS(createBssParams);
+                    currentState.put(entry.getName(), entry.getCrc() + "|" + entry.getSize());
+                    return null;
+                }));
+            });
+            for( Future<?> conversion : conversions ){
+                conversion.get();
+            }
+        } catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while converting stylesheets", ex);
+        } catch(ExecutionException ex){
+            if( ex.getCause() instanceof PackagerException ){
+                throw new GradleException("Unable to convert stylesheets", ex.getCause());
+            }
+            throw new GradleException("Got exception while converting stylesheets", ex.getCause());
+        } finally{
+            executorService.shutdownNow();
+        }
+    }
+
+    private String toBinaryStylesheetName(String cssEntryName) {
+        return cssEntryName.substring(0, cssEntryName.length() - ".css".length()) + ".bss";
+    }
+
+    private Properties readState() {
+        Properties state = new Properties();
+        File stateFile = new File(cacheDir, STATE_FILE_NAME);
+        if( !stateFile.exists() ){
+            return state;
+        }
+        try(InputStream stateInput = Files.newInputStream(stateFile.toPath())){
+            state.load(stateInput);
+        } catch(IOException ex){
+            logger.warn("Couldn't read state of converted stylesheets, all stylesheets will be converted again.", ex);
+            state.clear();
+        }
+        return state;
+    }
+
+    private void writeState(Map<String, String> currentState) {
+        Properties state = new Properties();
+        state.putAll(currentState);
+        try{
+            Files.createDirectories(cacheDir.toPath());
+            try(OutputStream stateOutput = Files.newOutputStream(new File(cacheDir, STATE_FILE_NAME).toPath())){
+                state.store(stateOutput, null);
+            }
+        } catch(IOException ex){
+            logger.warn("Couldn't write state of converted stylesheets.", ex);
+        }
+    }
+}
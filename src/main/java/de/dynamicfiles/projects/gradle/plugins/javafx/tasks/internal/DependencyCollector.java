@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.artifacts.ResolvedConfiguration;
+import org.gradle.api.artifacts.ResolvedDependency;
+import org.gradle.api.artifacts.SelfResolvingDependency;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Collects all dependencies which are copied into the lib-folder, this requires the project and therefor
+ * has to be done before the workers are running.
+ *
+ * @author Danny Althoff
+ */
+public class DependencyCollector {
+
+    private final Logger logger;
+
+    public DependencyCollector(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Resolves the "compile"- and "runtime"-configuration, applying all classpath-filters.
+     *
+     * @return all dependency-files mapped by their filename, keeping the order of the dependencies
+     */
+    public Map<String, File> collectDependencies(Project project, JavaFXGradlePluginExtension ext) {
+        DependencyFilter dependencyFilter = new DependencyFilter(ext.getClasspathIncludes(), ext.getClasspathExcludes());
+        Configuration compileConfiguration = project.getConfigurations().getByName("compile");
+        Configuration runtimeConfiguration = project.getConfigurations().getByName("runtime");
+        List<Configuration> configurations = new ArrayList<>();
+        // normally "runtime" extends "compile", so resolving "runtime" is enough
+        if( !runtimeConfiguration.getHierarchy().contains(compileConfiguration) ){
+            configurations.add(compileConfiguration);
+        }
+        configurations.add(runtimeConfiguration);
+
+        Map<String, File> dependencies = new LinkedHashMap<>();
+        configurations.forEach(configuration -> {
+            logger.info("Collecting " + configuration.getName() + "-dependencies...");
+            ResolvedConfiguration resolvedConfiguration = configuration.getResolvedConfiguration();
+            List<File> dependencyFiles = new ArrayList<>();
+            // this will work for all non-file dependencies
+            Set<ResolvedDependency> visitedDependencies = new HashSet<>();
+            resolvedConfiguration.getFirstLevelModuleDependencies().forEach(resolvedDep -> {
+                collectModuleArtifacts(resolvedDep, dependencyFilter, ext.isClasspathExcludesTransient(), visitedDependencies, dependencyFiles);
+            });
+            // inside "getFiles" all non-maven dependencies (like packager.jar) will be available
+            resolvedConfiguration.getFiles(dependency -> dependency instanceof SelfResolvingDependency && !(dependency instanceof ProjectDependency)).forEach(someFile -> {
+                String fileName = someFile.getName();
+                if( dependencyFilter.isExcluded(null, null, null, fileName) || !dependencyFilter.isIncluded(null, null, null, fileName) ){
+                    logger.info("Excluding dependency-file " + fileName);
+                    return;
+                }
+                dependencyFiles.add(someFile);
+            });
+
+            dependencyFiles.forEach(artifactFile -> {
+                String artifactFileName = artifactFile.getName();
+                if( "packager.jar".equals(artifactFileName) && !ext.isAddPackagerJar() ){
+                    logger.info("Skipped adding packager.jar.");
+                    return;
+                }
+                // add this lib only, when not already present (could happen on file-dependencies ... which behaves different from maven-model)
+                File existingFile = dependencies.putIfAbsent(artifactFileName, artifactFile);
+                if( existingFile != null && !existingFile.equals(artifactFile) ){
+                    logger.warn("Found different dependencies with the same filename, only copying " + existingFile + " and skipping " + artifactFile);
+                }
+            });
+        });
+        return dependencies;
+    }
+
+    private void collectModuleArtifacts(ResolvedDependency resolvedDependency, DependencyFilter dependencyFilter, boolean excludeTransitive, Set<ResolvedDependency> visitedDependencies, List<File> dependencyFiles) {
+        if( !visitedDependencies.add(resolvedDependency) ){
+            return;
+        }
+        String group = resolvedDependency.getModuleGroup();
+        String name = resolvedDependency.getModuleName();
+        String version = resolvedDependency.getModuleVersion();
+        if( dependencyFilter.isExcluded(group, name, version, null) ){
+            logger.info("Excluding dependency " + group + ":" + name + ":" + version + (excludeTransitive ? " including its dependencies" : ""));
+            if( excludeTransitive ){
+                return;
+            }
+        } else {
+            resolvedDependency.getModuleArtifacts().forEach(artifact -> {
+                String fileName = artifact.getFile().getName();
+                if( dependencyFilter.isExcluded(group, name, version, fileName) || !dependencyFilter.isIncluded(group, name, version, fileName) ){
+                    logger.info("Excluding dependency-file " + fileName);
+                    return;
+                }
+                dependencyFiles.add(artifact.getFile());
+            });
+        }
+        resolvedDependency.getChildren().forEach(childDependency -> {
+            collectModuleArtifacts(childDependency, dependencyFilter, excludeTransitive, visitedDependencies, dependencyFiles);
+        });
+    }
+}
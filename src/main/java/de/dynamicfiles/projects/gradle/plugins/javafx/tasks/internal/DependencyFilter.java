@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Filter for dependencies using patterns like "group:name", "group:name:version" or some filename
+ * like "lombok-*.jar". Within all patterns "*" and "?" can be used as wildcard.
+ *
+ * @author Danny Althoff
+ */
+public class DependencyFilter {
+
+    private final List<DependencyPattern> includes;
+    private final List<DependencyPattern> excludes;
+
+    public DependencyFilter(List<String> includes, List<String> excludes) {
+        this.includes = toPatterns(includes);
+        this.excludes = toPatterns(excludes);
+    }
+
+    public boolean hasRules() {
+        return !includes.isEmpty() || !excludes.isEmpty();
+    }
+
+    /**
+     * @param group might be null for file-dependencies
+     * @param name might be null for file-dependencies
+     * @param version might be null for file-dependencies
+     */
+    public boolean isExcluded(String group, String name, String version, String fileName) {
+        return excludes.stream().anyMatch(pattern -> pattern.matches(group, name, version, fileName));
+    }
+
+    /**
+     * @return true, when there are no include-rules or any include-rule matches
+     */
+    public boolean isIncluded(String group, String name, String version, String fileName) {
+        if( includes.isEmpty() ){
+            return true;
+        }
+        return includes.stream().anyMatch(pattern -> pattern.matches(group, name, version, fileName));
+    }
+
+    private List<DependencyPattern> toPatterns(List<String> rawPatterns) {
+        List<DependencyPattern> patterns = new ArrayList<>();
+        Optional.ofNullable(rawPatterns).orElse(Collections.emptyList()).stream()
+                .filter(rawPattern -> rawPattern != null && !rawPattern.trim().isEmpty())
+                .map(rawPattern -> new DependencyPattern(rawPattern.trim()))
+                .forEach(patterns::add);
+        return patterns;
+    }
+
+    private static class DependencyPattern {
+
+        private final boolean isCoordinatePattern;
+        private final int coordinateParts;
+        private final Pattern pattern;
+
+        DependencyPattern(String rawPattern) {
+            this.isCoordinatePattern = rawPattern.contains(":");
+            this.coordinateParts = rawPattern.split(":", -1).length;
+            StringBuilder regex = new StringBuilder();
+            for( char character : rawPattern.toCharArray() ){
+                switch(character) {
+                    case '*':
+                        regex.append(isCoordinatePattern ? "[^:]*" : ".*");
+                        break;
+                    case '?':
+                        regex.append(isCoordinatePattern ? "[^:]" : ".");
+                        break;
+                    default:
+                        regex.append(Pattern.quote(String.valueOf(character)));
+                        break;
+                }
+            }
+            this.pattern = Pattern.compile(regex.toString());
+        }
+
+        boolean matches(String group, String name, String version, String fileName) {
+            if( !isCoordinatePattern ){
+                return fileName != null && pattern.matcher(fileName).matches();
+            }
+            if( group == null || name == null ){
+                return false;
+            }
+            String coordinates = group + ":" + name;
+            if( coordinateParts > 2 ){
+                coordinates = coordinates + ":" + version;
+            }
+            return pattern.matcher(coordinates).matches();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Places dependency-files inside the lib-folder. Instead of copying all bytes, this can create some
+ * copy-on-write clone (reflink) or a hardlink, when source and target are on the same device.
+ *
+ * @author Danny Althoff
+ */
+public class DependencyStager {
+
+    public static final String STRATEGY_COPY = "copy";
+    public static final String STRATEGY_HARDLINK = "hardlink";
+    public static final String STRATEGY_REFLINK = "reflink";
+    public static final String STRATEGY_AUTO = "auto";
+
+    private static final boolean IS_LINUX = System.getProperty("os.name").toLowerCase().startsWith("linux");
+    private static final boolean IS_MAC = System.getProperty("os.name").toLowerCase().contains("os x");
+
+    private final Logger logger;
+    private final String strategy;
+
+    // results of probing, per combination of source- and target-device
+    private final Map<String, Boolean> reflinkSupported = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> hardlinkSupported = new ConcurrentHashMap<>();
+
+    public DependencyStager(String strategy, Logger logger) {
+        this.logger = logger;
+        this.strategy = strategy == null ? STRATEGY_COPY : strategy.trim().toLowerCase();
+        switch(this.strategy) {
+            case STRATEGY_COPY:
+            case STRATEGY_HARDLINK:
+            case STRATEGY_REFLINK:
+            case STRATEGY_AUTO:
+                break;
+            default:
+                throw new GradleException("Unknown dependency staging strategy: " + strategy + ", please use one of: " + String.join(", ", STRATEGY_COPY, STRATEGY_HARDLINK, STRATEGY_REFLINK, STRATEGY_AUTO));
+        }
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Places the source-file at the target-location, replacing any existing file.
+     */
+    public void stage(Path source, Path target) throws IOException {
+        if( !STRATEGY_COPY.equals(strategy) ){
+            String deviceKey = getDeviceKey(source, target);
+            if( deviceKey != null ){
+                boolean tryReflink = STRATEGY_REFLINK.equals(strategy) || STRATEGY_AUTO.equals(strategy);
+                if( tryReflink && reflinkSupported.getOrDefault(deviceKey, true) ){
+                    if( tryReflink(source, target) ){
+                        reflinkSupported.put(deviceKey, true);
+                        return;
+                    }
+                    reflinkSupported.put(deviceKey, false);
+                    logger.info("Could not create reflink for " + source + ", falling back");
+                }
+                boolean tryHardlink = STRATEGY_HARDLINK.equals(strategy) || STRATEGY_AUTO.equals(strategy);
+                if( tryHardlink && hardlinkSupported.getOrDefault(deviceKey, true) ){
+                    if( tryHardlink(source, target) ){
+                        hardlinkSupported.put(deviceKey, true);
+                        return;
+                    }
+                    hardlinkSupported.put(deviceKey, false);
+                    logger.info("Could not create hardlink for " + source + ", falling back");
+                }
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private String getDeviceKey(Path source, Path target) {
+        try{
+            FileStore sourceStore = Files.getFileStore(source);
+            FileStore targetStore = Files.getFileStore(target.getParent());
+            if( !sourceStore.equals(targetStore) ){
+                // links are not possible across devices
+                return null;
+            }
+            return sourceStore.name() + "|" + sourceStore.type();
+        } catch(IOException ex){
+            logger.debug("Could not determine file store of " + source, ex);
+            return null;
+        }
+    }
+
+    private boolean tryHardlink(Path source, Path target) {
+        try{
+            Files.deleteIfExists(target);
+            Files.createLink(target, source);
+            return true;
+        } catch(IOException | UnsupportedOperationException | SecurityException ex){
+            logger.debug("Creating hardlink failed", ex);
+            return false;
+        }
+    }
+
+    private boolean tryReflink(Path source, Path target) {
+        List<String> command = new ArrayList<>();
+        command.add("cp");
+        if( IS_LINUX ){
+            command.add("--reflink=always");
+        } else if( IS_MAC ){
+            // uses clonefile on APFS
+            command.add("-c");
+        } else {
+            return false;
+        }
+        command.add(source.toAbsolutePath().toString());
+        command.add(target.toAbsolutePath().toString());
+        try{
+            Files.deleteIfExists(target);
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.PIPE).start();
+            // no need for any output
+            process.getInputStream().close();
+            if( !process.waitFor(30, TimeUnit.SECONDS) ){
+                process.destroy();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch(IOException ex){
+            logger.debug("Creating reflink failed", ex);
+            return false;
+        } catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
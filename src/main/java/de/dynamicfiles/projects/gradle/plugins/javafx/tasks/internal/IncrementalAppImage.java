@@ -0,0 +1,309 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import com.oracle.tools.packager.RelativeFileSet;
+import com.oracle.tools.packager.StandardBundlerParam;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Keeps the application image of the previous build when only the application resources have changed. Instead of
+ * running the application bundler (which deletes its image and copies the whole runtime again), all changed, added
+ * and removed application resources get applied to the "app"-folder of the existing image.
+ *
+ * Everything else (all other parameters, the JDK, the runtime and the manifests of all jar-files being on the root of
+ * the application resources) has to be the same, and the image must not have been modified since, otherwise the
+ * application bundler runs as usual.
+ *
+ * @author Danny Althoff
+ */
+public class IncrementalAppImage {
+
+    private static final Set<String> SUPPORTED_BUNDLER_IDS = new HashSet<>(Arrays.asList("linux.app", "windows.app"));
+
+    private static final String APP_FOLDER_NAME = "app";
+    private static final String RUNTIME_FOLDER_NAME = "runtime";
+    // bundlers are using the JRE of the running JDK when no runtime was set
+    private static final List<String> RUNTIME_PARAM_KEYS = Arrays.asList("runtime", "linux.runtime", "win.runtime");
+    private static final String STATE_CONFIGURATION = "configuration";
+    private static final String STATE_IMAGE = "image";
+    private static final String STATE_RUNTIME = "runtime";
+    private static final String STATE_RESOURCE_PREFIX = "resource.";
+    private static final String STATE_IMAGE_FILE_PREFIX = "image.";
+
+    private final File stateDir;
+    private final Logger logger;
+
+    public IncrementalAppImage(File stateDir, Logger logger) {
+        this.stateDir = stateDir;
+        this.logger = logger;
+    }
+
+    /**
+     * @param params parameters of the bundler, before the bundler added its default values
+     *
+     * @return the updated image, or null when the bundler has to create a new one
+     */
+    public File update(String bundlerId, Map<String, ? super Object> params) {
+        if( !SUPPORTED_BUNDLER_IDS.contains(bundlerId) ){
+            return null;
+        }
+        Properties previousState = readState(bundlerId);
+        // only existing when describing some complete image
+        getStateFile(bundlerId).delete();
+
+        String previousImage = previousState.getProperty(STATE_IMAGE);
+        if( previousImage == null ){
+            return null;
+        }
+        File appImage = new File(previousImage);
+        File appFolder = new File(appImage, APP_FOLDER_NAME);
+        if( !appFolder.isDirectory() ){
+            return null;
+        }
+        String configuration = getConfiguration(params);
+        if( configuration == null || !configuration.equals(previousState.getProperty(STATE_CONFIGURATION)) ){
+            logger.info("Configuration of the application image has changed, creating new application image.");
+            return null;
+        }
+        if( !getRuntimeState(params, appImage).equals(previousState.getProperty(STATE_RUNTIME)) ){
+            logger.info("Runtime of the application image has changed, creating new application image.");
+            return null;
+        }
+
+        try{
+            if( !getImageFilesState(appFolder).equals(getPrefixedState(previousState, STATE_IMAGE_FILE_PREFIX)) ){
+                logger.info("Application image was modified, creating new application image.");
+                return null;
+            }
+
+            Map<String, String> previousResourcesState = getPrefixedState(previousState, STATE_RESOURCE_PREFIX);
+            Map<String, File> resources = getResources(params);
+            int updatedResources = 0;
+            for( Map.Entry<String, File> resource : resources.entrySet() ){
+                if( getFileState(resource.getValue()).equals(previousResourcesState.get(resource.getKey())) ){
+                    continue;
+                }
+                Path targetFile = appFolder.toPath().resolve(resource.getKey());
+                Files.createDirectories(targetFile.getParent());
+                Files.copy(resource.getValue().toPath(), targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                updatedResources++;
+            }
+            int removedResources = 0;
+            for( String previousResource : previousResourcesState.keySet() ){
+                if( !resources.containsKey(previousResource) ){
+                    Path removedFile = appFolder.toPath().resolve(previousResource);
+                    Files.deleteIfExists(removedFile);
+                    deleteEmptyParentFolders(removedFile, appFolder.toPath());
+                    removedResources++;
+                }
+            }
+            logger.lifecycle("Updated application image " + appImage + " (" + updatedResources + " of " + resources.size() + " application resources changed, " + removedResources + " removed).");
+            return appImage;
+        } catch(IOException ex){
+            logger.warn("Couldn't update application image, creating new application image.", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Remembers the state of the application image after it was created (or updated) and all workarounds were applied.
+     */
+    public void imageCreated(String bundlerId, Map<String, ? super Object> params, File appImage) {
+        if( !SUPPORTED_BUNDLER_IDS.contains(bundlerId) || appImage == null ){
+            return;
+        }
+        File appFolder = new File(appImage, APP_FOLDER_NAME);
+        if( !appFolder.isDirectory() ){
+            return;
+        }
+        String configuration = getConfiguration(params);
+        if( configuration == null ){
+            logger.info("Configuration of the application image contains unknown parameter types, next build will create new application image.");
+            return;
+        }
+        Properties state = new Properties();
+        state.setProperty(STATE_IMAGE, appImage.getAbsolutePath());
+        state.setProperty(STATE_CONFIGURATION, configuration);
+        state.setProperty(STATE_RUNTIME, getRuntimeState(params, appImage));
+        try{
+            getResources(params).forEach((resourceName, resourceFile) -> {
+                state.setProperty(STATE_RESOURCE_PREFIX + resourceName, getFileState(resourceFile));
+            });
+            getImageFilesState(appFolder).forEach((imageFileName, imageFileState) -> {
+                state.setProperty(STATE_IMAGE_FILE_PREFIX + imageFileName, imageFileState);
+            });
+            Files.createDirectories(stateDir.toPath());
+            try(OutputStream stateOutput = Files.newOutputStream(getStateFile(bundlerId).toPath())){
+                state.store(stateOutput, null);
+            }
+        } catch(IOException ex){
+            logger.warn("Couldn't write state of application image, next build will create new application image.", ex);
+            getStateFile(bundlerId).delete();
+        }
+    }
+
+    private String getConfiguration(Map<String, ? super Object> params) {
+        List<String> resourceKeys = Arrays.asList(StandardBundlerParam.APP_RESOURCES.getID(), StandardBundlerParam.APP_RESOURCES.getID() + "List");
+        BundlerParamsFingerprint configuration = new BundlerParamsFingerprint()
+                .addText("java.home", System.getProperty("java.home"))
+                .add("java.version", System.getProperty("java.version"))
+                .addAll(params, resourceKeys);
+        // the launcher configuration depends on the manifest of the main jar-file (e.g. for the classpath)
+        for( RelativeFileSet resourceSet : getResourceSets(params) ){
+            resourceSet.getIncludedFiles().stream()
+                    .map(includedFile -> includedFile.replace('\\', '/'))
+                    .filter(includedFile -> includedFile.endsWith(".jar") && !includedFile.contains("/"))
+                    .sorted()
+                    .forEach(jarFileName -> configuration.add("manifest:" + jarFileName, getManifestAttributes(new File(resourceSet.getBaseDirectory(), jarFileName))));
+        }
+        return configuration.getChecksum();
+    }
+
+    /*
+     * Runtimes set via parameters are already part of the configuration, but the JRE of the running JDK and the
+     * runtime inside the image are not. Walking all files of the JRE would take too long, so it is described by its
+     * version and its release-file (being next to the JRE on JDK 8).
+     */
+    private String getRuntimeState(Map<String, ? super Object> params, File appImage) {
+        BundlerParamsFingerprint runtimeState = new BundlerParamsFingerprint();
+        if( RUNTIME_PARAM_KEYS.stream().noneMatch(params::containsKey) ){
+            File javaHome = new File(System.getProperty("java.home"));
+            runtimeState.addText("java.home", javaHome.getAbsolutePath())
+                    .add("java.vendor", System.getProperty("java.vendor"))
+                    .add("java.runtime.version", System.getProperty("java.runtime.version"))
+                    .add("release", new File(javaHome, "release"))
+                    .add("jdk.release", new File(javaHome.getParentFile(), "release"));
+        }
+        return runtimeState.addDirectory("image", new File(appImage, RUNTIME_FOLDER_NAME)).getChecksum();
+    }
+
+    private void deleteEmptyParentFolders(Path removedFile, Path appFolder) throws IOException {
+        Path parentFolder = removedFile.getParent();
+        while( parentFolder != null && parentFolder.startsWith(appFolder) && !parentFolder.equals(appFolder) ) {
+            if( !Files.isDirectory(parentFolder) ){
+                parentFolder = parentFolder.getParent();
+                continue;
+            }
+            try(Stream<Path> folderContent = Files.list(parentFolder)){
+                if( folderContent.findAny().isPresent() ){
+                    return;
+                }
+            }
+            Files.delete(parentFolder);
+            parentFolder = parentFolder.getParent();
+        }
+    }
+
+    private Map<String, String> getManifestAttributes(File jarFile) {
+        Map<String, String> manifestAttributes = new TreeMap<>();
+        try(JarFile jar = new JarFile(jarFile)){
+            Manifest manifest = jar.getManifest();
+            if( manifest != null ){
+                manifest.getMainAttributes().forEach((key, value) -> manifestAttributes.put(String.valueOf(key), String.valueOf(value)));
+            }
+        } catch(IOException ex){
+            manifestAttributes.put("unreadable", String.valueOf(jarFile.lastModified()));
+        }
+        return manifestAttributes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RelativeFileSet> getResourceSets(Map<String, ? super Object> params) {
+        List<RelativeFileSet> resourceSets = new ArrayList<>();
+        Object resourcesList = params.get(StandardBundlerParam.APP_RESOURCES.getID() + "List");
+        if( resourcesList instanceof List ){
+            resourceSets.addAll((List<RelativeFileSet>) resourcesList);
+        } else if( params.get(StandardBundlerParam.APP_RESOURCES.getID()) instanceof RelativeFileSet ){
+            resourceSets.add((RelativeFileSet) params.get(StandardBundlerParam.APP_RESOURCES.getID()));
+        }
+        return resourceSets;
+    }
+
+    /*
+     * Later resource-sets overwrite files of earlier ones, same as done by the bundlers.
+     */
+    private Map<String, File> getResources(Map<String, ? super Object> params) {
+        Map<String, File> resources = new LinkedHashMap<>();
+        for( RelativeFileSet resourceSet : getResourceSets(params) ){
+            resourceSet.getIncludedFiles().forEach(includedFile -> {
+                resources.put(includedFile.replace('\\', '/'), new File(resourceSet.getBaseDirectory(), includedFile));
+            });
+        }
+        return resources;
+    }
+
+    private Map<String, String> getImageFilesState(File appFolder) throws IOException {
+        Map<String, String> imageFilesState = new HashMap<>();
+        try(Stream<Path> walkstream = Files.walk(appFolder.toPath())){
+            walkstream.filter(Files::isRegularFile).forEach(imageFile -> {
+                imageFilesState.put(appFolder.toPath().relativize(imageFile).toString().replace('\\', '/'), getFileState(imageFile.toFile()));
+            });
+        }
+        return imageFilesState;
+    }
+
+    private Map<String, String> getPrefixedState(Properties state, String prefix) {
+        Map<String, String> prefixedState = new HashMap<>();
+        state.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(prefix))
+                .forEach(key -> prefixedState.put(key.substring(prefix.length()), state.getProperty(key)));
+        return prefixedState;
+    }
+
+    private String getFileState(File file) {
+        return file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+    }
+
+    private File getStateFile(String bundlerId) {
+        return new File(stateDir, "app-image-" + bundlerId + ".properties");
+    }
+
+    private Properties readState(String bundlerId) {
+        Properties state = new Properties();
+        File stateFile = getStateFile(bundlerId);
+        if( !stateFile.exists() ){
+            return state;
+        }
+        try(InputStream stateInput = Files.newInputStream(stateFile.toPath())){
+            state.load(stateInput);
+        } catch(IOException ex){
+            logger.warn("Couldn't read state of application image, creating new application image.", ex);
+            state.clear();
+        }
+        return state;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Creates the content of "META-INF/INDEX.LIST" (same format as created by "jar -i"), mapping all packages
+ * to the jar-files containing them. Jar-files are listed in the order they were added, which has to be
+ * the order of the classpath.
+ *
+ * @author Danny Althoff
+ */
+public class JarIndex {
+
+    public static final String INDEX_NAME = "META-INF/INDEX.LIST";
+
+    private final Map<String, Set<String>> packagesByJar = new LinkedHashMap<>();
+
+    /**
+     * @param jarPath path of the jar-file, relative to the jar-file containing this index
+     */
+    public void addJar(String jarPath, Collection<String> entryNames) {
+        Set<String> packages = packagesByJar.computeIfAbsent(jarPath, path -> new TreeSet<>());
+        entryNames.stream()
+                .filter(entryName -> !"META-INF/".equals(entryName) && !INDEX_NAME.equals(entryName) && !JarFile.MANIFEST_NAME.equals(entryName))
+                .map(this::toPackageName)
+                .forEach(packages::add);
+    }
+
+    /**
+     * @param jarPath path of the jar-file, relative to the jar-file containing this index
+     */
+    public void addJar(String jarPath, File jarFile) throws IOException {
+        try(ZipFile zipFile = new ZipFile(jarFile)){
+            Set<String> entryNames = new TreeSet<>();
+            for( ZipEntry entry : Collections.list(zipFile.entries()) ){
+                entryNames.add(entry.getName());
+            }
+            addJar(jarPath, entryNames);
+        }
+    }
+
+    public boolean isEmpty() {
+        return packagesByJar.isEmpty();
+    }
+
+    public byte[] toBytes() {
+        StringBuilder index = new StringBuilder();
+        index.append("JarIndex-Version: 1.0\n\n");
+        packagesByJar.forEach((jarPath, packages) -> {
+            index.append(jarPath).append("\n");
+            packages.forEach(packageName -> index.append(packageName).append("\n"));
+            index.append("\n");
+        });
+        return index.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Same as done by the JDK: everything up to the last slash, files inside the root are kept as they are.
+     */
+    private String toPackageName(String entryName) {
+        int lastSlash = entryName.lastIndexOf('/');
+        if( lastSlash > 0 ){
+            return entryName.substring(0, lastSlash);
+        }
+        return entryName;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Remembers which dependency-files were placed inside the lib-folder, making it possible to skip unchanged
+ * files and to remove files which are no longer part of the dependencies.
+ *
+ * @author Danny Althoff
+ */
+public class LibFolderState {
+
+    private final File stateFile;
+    private final Logger logger;
+    private final Map<String, String> previousState = new ConcurrentHashMap<>();
+    private final Map<String, String> currentState = new ConcurrentHashMap<>();
+
+    public LibFolderState(File stateFile, Logger logger) {
+        this.stateFile = stateFile;
+        this.logger = logger;
+        if( !stateFile.exists() ){
+            return;
+        }
+        Properties properties = new Properties();
+        try(InputStream stateInput = Files.newInputStream(stateFile.toPath())){
+            properties.load(stateInput);
+            properties.stringPropertyNames().forEach(fileName -> previousState.put(fileName, properties.getProperty(fileName)));
+        } catch(IOException ex){
+            // just copy everything again
+            logger.warn("Couldn't read state of lib-folder, all dependencies will be copied again.", ex);
+        }
+    }
+
+    /**
+     * @return true, when the source-file was already placed inside the lib-folder and did not change since then
+     */
+    public boolean isUpToDate(Path source, Path target) throws IOException {
+        if( !Files.exists(target) ){
+            return false;
+        }
+        String fileName = target.getFileName().toString();
+        String sourceState = getSourceState(source);
+        if( !sourceState.equals(previousState.get(fileName)) ){
+            return false;
+        }
+        return Files.size(target) == Files.size(source);
+    }
+
+    public void staged(Path source, Path target) throws IOException {
+        currentState.put(target.getFileName().toString(), getSourceState(source));
+    }
+
+    /**
+     * Deletes all files which were placed by some previous run, but are not placed anymore.
+     */
+    public void removeStaleFiles(File libDir) {
+        for( String fileName : previousState.keySet() ){
+            if( currentState.containsKey(fileName) ){
+                continue;
+            }
+            File staleFile = new File(libDir, fileName);
+            if( staleFile.exists() ){
+                logger.info("Removing stale dependency from lib-folder: " + fileName);
+                if( !staleFile.delete() ){
+                    logger.warn("Couldn't remove stale dependency: " + staleFile);
+                }
+            }
+        }
+    }
+
+    public void save() {
+        Properties properties = new Properties();
+        properties.putAll(currentState);
+        File stateFolder = stateFile.getParentFile();
+        if( !stateFolder.exists() && !stateFolder.mkdirs() ){
+            logger.warn("Couldn't create folder for state of lib-folder: " + stateFolder);
+            return;
+        }
+        try(OutputStream stateOutput = Files.newOutputStream(stateFile.toPath())){
+            properties.store(stateOutput, null);
+        } catch(IOException ex){
+            logger.warn("Couldn't write state of lib-folder.", ex);
+        }
+    }
+
+    private String getSourceState(Path source) throws IOException {
+        return Files.size(source) + "|" + Files.getLastModifiedTime(source).toMillis() + "|" + source.toAbsolutePath().toString();
+    }
+}
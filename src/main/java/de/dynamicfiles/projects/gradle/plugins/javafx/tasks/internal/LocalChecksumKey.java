@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.gradle.api.GradleException;
+
+/**
+ * Creates checksums of secret values (like passwords) using some random key, which is kept inside the gradle user home
+ * and never leaves this machine. Such checksums can be part of the task-history or the build-cache without making it
+ * possible to guess the secret values from them.
+ *
+ * @author Danny Althoff
+ */
+public final class LocalChecksumKey {
+
+    private static final String KEY_ALGORITHM = "HmacSHA256";
+    private static final int KEY_LENGTH = 32;
+
+    private LocalChecksumKey() {
+    }
+
+    public static String getChecksum(File gradleUserHomeDir, String... values) {
+        try{
+            Mac mac = Mac.getInstance(KEY_ALGORITHM);
+            mac.init(new SecretKeySpec(getKey(gradleUserHomeDir), KEY_ALGORITHM));
+            for( String value : values ){
+                mac.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                // separator, so moving characters between the values changes the checksum
+                mac.update((byte) 0);
+            }
+            return new BigInteger(1, mac.doFinal()).toString(16);
+        } catch(NoSuchAlgorithmException | InvalidKeyException ex){
+            throw new GradleException("Could not create checksum of secret values", ex);
+        }
+    }
+
+    private static synchronized byte[] getKey(File gradleUserHomeDir) {
+        Path keyFile = new File(gradleUserHomeDir, "caches/javafx-gradle-plugin-secret/checksum.key").toPath();
+        try{
+            if( Files.isRegularFile(keyFile) && Files.size(keyFile) == KEY_LENGTH ){
+                return Files.readAllBytes(keyFile);
+            }
+            Files.createDirectories(keyFile.getParent());
+            Path temporaryKeyFile;
+            if( FileSystems.getDefault().supportedFileAttributeViews().contains("posix") ){
+                // only readable by the current user
+                temporaryKeyFile = Files.createTempFile(keyFile.getParent(), "checksum", ".tmp", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } else {
+                temporaryKeyFile = Files.createTempFile(keyFile.getParent(), "checksum", ".tmp");
+            }
+            byte[] key = new byte[KEY_LENGTH];
+            new SecureRandom().nextBytes(key);
+            Files.write(temporaryKeyFile, key);
+            Files.move(temporaryKeyFile, keyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // other gradle-daemons might have created their key at the same time, only the last one is kept
+            return Files.readAllBytes(keyFile);
+        } catch(IOException ex){
+            throw new GradleException("Could not create key for checksums inside " + keyFile.getParent(), ex);
+        }
+    }
+}
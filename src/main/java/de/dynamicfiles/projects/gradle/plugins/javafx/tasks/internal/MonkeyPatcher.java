@@ -16,20 +16,23 @@
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
 
 import static de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePlugin.ANT_JAVAFX_JAR_FILENAME;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.jar.JarFile;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -49,8 +52,27 @@ public class MonkeyPatcher {
     private static final String METHOD_SIGNATURE_TO_MONKEY_PATCH = "(Ljava/io/File;Ljava/io/File;)V";
     private static final String FAULTY_CLASSFILE_TO_MONKEY_PATCH = "com/oracle/tools/packager/windows/WinAppBundler.class";
     public static final String WORKAROUND_DIRECTORY_NAME = "javafx-gradle-plugin-workaround";
+    private static final String CHECKSUM_FILE_EXTENSION = ".sha256";
+    // increase this when changing the way the jar-file gets patched, invalidating all cached jar-files
+    private static final int PATCH_REVISION = 2;
 
-    public static URL getPatchedJfxAntJar() throws MalformedURLException {
+    /**
+     * Some workaround for the content of some jar-entry.
+     */
+    @FunctionalInterface
+    private interface EntryPatch {
+
+        byte[] patch(byte[] originalContent) throws IOException;
+    }
+
+    // all entries of ant-javafx.jar requiring some workaround, all other entries are copied as they are
+    private static final Map<String, EntryPatch> ENTRY_PATCHES = Collections.singletonMap(FAULTY_CLASSFILE_TO_MONKEY_PATCH, MonkeyPatcher::patchFileHandleLeak);
+
+    /**
+     * Patched jar-files are stored inside the gradle user home, keyed by the checksum of the original ant-javafx.jar
+     * and the version of this plugin. This makes it possible to reuse them between builds and gradle-daemons.
+     */
+    public static URL getPatchedJfxAntJar(File gradleUserHomeDir) throws MalformedURLException {
         String jfxAntJarPath = "/../lib/" + ANT_JAVAFX_JAR_FILENAME;
 
         // on java 9, we have a different path
@@ -64,64 +86,116 @@ public class MonkeyPatcher {
             throw new RuntimeException("Couldn't find Ant-JavaFX-library, please make sure you've installed some JDK which includes JavaFX (e.g. OracleJDK or OpenJDK and OpenJFX), and JAVA_HOME is set properly.");
         }
 
-        // open jar-file as inputstream
-        // copy into new jar-file into temp-folder
-        // when found special WinAppBundler-file, process this file via ASM
-        // generate new class-file
-        // write that generated class-file instead of original file to new jar-file
-        // return path to that modified jar-file
         try{
-            Path tempDirectory = Files.createTempDirectory(WORKAROUND_DIRECTORY_NAME);
-            // delete that crap after JVM being shut down
-            tempDirectory.toFile().deleteOnExit();
+            String pluginVersion = Optional.ofNullable(MonkeyPatcher.class.getPackage().getImplementationVersion()).orElse("unknown");
+            String cacheKey = getChecksum((getChecksum(jfxAntJar.toPath()) + ":" + pluginVersion + ":" + PATCH_REVISION).getBytes(StandardCharsets.UTF_8));
+            Path cacheDirectory = gradleUserHomeDir.toPath().resolve("caches").resolve(WORKAROUND_DIRECTORY_NAME).resolve(cacheKey);
+            Path patchedJar = cacheDirectory.resolve(ANT_JAVAFX_JAR_FILENAME);
+            Path checksumFile = cacheDirectory.resolve(ANT_JAVAFX_JAR_FILENAME + CHECKSUM_FILE_EXTENSION);
 
-            JarFile jarFile = new JarFile(jfxAntJar, false, JarFile.OPEN_READ);
-            File targetManipulatedJarFile = tempDirectory.resolve(ANT_JAVAFX_JAR_FILENAME).toAbsolutePath().toFile();
-            // delete that crap after JVM being shut down
-            targetManipulatedJarFile.deleteOnExit();
-
-            AtomicBoolean useModifiedVersion = new AtomicBoolean(false);
+            if( isValidCacheEntry(patchedJar, checksumFile) ){
+                return patchedJar.toUri().toURL();
+            }
 
-            try(FileOutputStream processedAntJar = new FileOutputStream(targetManipulatedJarFile)){
-                ZipOutputStream zipOutputStream = new java.util.zip.ZipOutputStream(processedAntJar);
-                jarFile.stream().forEachOrdered(jarEntry -> {
-                    ZipEntry zipEntry = new ZipEntry(jarEntry.getName());
-                    try{
-                        zipOutputStream.putNextEntry(zipEntry);
+            // other gradle-daemons might create the same entry, so create it aside and move it afterwards
+            Files.createDirectories(cacheDirectory);
+            Path temporaryJar = Files.createTempFile(cacheDirectory, ANT_JAVAFX_JAR_FILENAME, ".tmp");
+            try{
+                if( !writePatchedJar(jfxAntJar, temporaryJar.toFile()) ){
+                    return jfxAntJar.toURI().toURL();
+                }
+                String checksum = getChecksum(temporaryJar);
+                Files.move(temporaryJar, patchedJar, StandardCopyOption.REPLACE_EXISTING);
+                Path temporaryChecksumFile = Files.createTempFile(cacheDirectory, ANT_JAVAFX_JAR_FILENAME, ".tmp");
+                Files.write(temporaryChecksumFile, checksum.getBytes(StandardCharsets.UTF_8));
+                Files.move(temporaryChecksumFile, checksumFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch(IOException ex){
+                // the file might be in use by some other gradle-daemon (which created the same entry)
+                if( !isValidCacheEntry(patchedJar, checksumFile) ){
+                    throw ex;
+                }
+            } finally{
+                Files.deleteIfExists(temporaryJar);
+            }
+            return patchedJar.toUri().toURL();
+        } catch(IOException | NoSuchAlgorithmException ex){
+            Logger.getLogger(MonkeyPatcher.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return jfxAntJar.toURI().toURL();
+    }
 
-                        if( jarEntry.getName().equals(FAULTY_CLASSFILE_TO_MONKEY_PATCH) ){
-                            useModifiedVersion.set(true);
+    /*
+     * Copies all entries without inflating and deflating their content, only patched entries are written again.
+     */
+    private static boolean writePatchedJar(File jfxAntJar, File targetManipulatedJarFile) throws IOException {
+        boolean useModifiedVersion = false;
+        try(RawJarFile jarFile = new RawJarFile(jfxAntJar); RawJarWriter jarWriter = new RawJarWriter(targetManipulatedJarFile)){
+            for( RawJarFile.Entry entry : jarFile.getEntries() ){
+                EntryPatch entryPatch = ENTRY_PATCHES.get(entry.getName());
+                if( entryPatch == null ){
+                    jarWriter.copyEntry(jarFile, entry);
+                    continue;
+                }
+                try(InputStream originalContent = jarFile.getInputStream(entry)){
+                    jarWriter.writeEntry(entry, entryPatch.patch(readFully(originalContent)));
+                }
+                useModifiedVersion = true;
+            }
+        }
+        return useModifiedVersion;
+    }
 
-                            ClassReader classReader = new ClassReader(jarFile.getInputStream(jarEntry));
-                            ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    private static byte[] patchFileHandleLeak(byte[] originalClass) {
+        ClassReader classReader = new ClassReader(originalClass);
+        ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        doMonkeyPatchFileHandleLeak(classReader, classWriter);
+        return classWriter.toByteArray();
+    }
 
-                            doMonkeyPatchFileHandleLeak(classReader, classWriter);
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while((count = inputStream.read(buffer)) > 0) {
+            content.write(buffer, 0, count);
+        }
+        return content.toByteArray();
+    }
 
-                            byte[] generatedBytes = classWriter.toByteArray();
+    private static boolean isValidCacheEntry(Path patchedJar, Path checksumFile) throws IOException {
+        if( !Files.exists(patchedJar) || !Files.exists(checksumFile) ){
+            return false;
+        }
+        try{
+            String expectedChecksum = new String(Files.readAllBytes(checksumFile), StandardCharsets.UTF_8).trim();
+            return expectedChecksum.equals(getChecksum(patchedJar));
+        } catch(NoSuchAlgorithmException ex){
+            return false;
+        }
+    }
 
-                            zipOutputStream.write(generatedBytes);
-                        } else {
-                            InputStream storedInputStream = jarFile.getInputStream(jarEntry);
-                            int count;
-                            byte[] buffer = new byte[8192];
-                            while((count = storedInputStream.read(buffer)) > 0) {
-                                zipOutputStream.write(buffer, 0, count);
-                            }
-                        }
-                        zipOutputStream.flush();
-                    } catch(NullPointerException | IOException ex){
-                        Logger.getLogger(MonkeyPatcher.class.getName()).log(Level.SEVERE, null, ex);
-                    }
-                });
-                zipOutputStream.finish();
-            }
-            if( useModifiedVersion.get() ){
-                return targetManipulatedJarFile.toURI().toURL();
+    private static String getChecksum(Path file) throws IOException, NoSuchAlgorithmException {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        try(InputStream fileContent = Files.newInputStream(file)){
+            byte[] buffer = new byte[8192];
+            int count;
+            while((count = fileContent.read(buffer)) > 0) {
+                messageDigest.update(buffer, 0, count);
             }
-        } catch(IOException ex){
-            // NO-OP
         }
-        return jfxAntJar.toURI().toURL();
+        return toHex(messageDigest.digest());
+    }
+
+    private static String getChecksum(byte[] content) throws NoSuchAlgorithmException {
+        return toHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for( byte b : bytes ){
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
     }
 
     private static void doMonkeyPatchFileHandleLeak(ClassReader classReader, ClassWriter classWriter) {
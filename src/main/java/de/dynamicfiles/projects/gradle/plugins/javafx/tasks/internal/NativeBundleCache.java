@@ -0,0 +1,379 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Local store for the outcome of bundlers, keyed by the fingerprint of everything the bundler uses (parameters with
+ * the contents of all referenced files, bundler-ID, JDK, deploy-directory and additional bundler resources). All
+ * files are stored by the checksum of their content, so the same files of different bundles (or builds) are only
+ * stored once.
+ *
+ * Only bundlers of the JDK which create exactly one file or directory inside the output directory are supported.
+ * Symbolic links inside the bundle are stored as links, and bundlers having parameters of unknown types are not cached.
+ * Bundles not used for some days are removed by {@link #prune(int)}.
+ *
+ * @author Danny Althoff
+ */
+public class NativeBundleCache {
+
+    private static final Set<String> CACHEABLE_BUNDLER_IDS = new HashSet<>(Arrays.asList(
+            "windows.app", "exe", "msi",
+            "mac.app", "dmg", "pkg",
+            "linux.app", "deb", "rpm"
+    ));
+
+    // gets increased when the layout of the cache or the bundling itself (e.g. some workaround) has changed
+    private static final int CACHE_REVISION = 2;
+
+    private static final String BUNDLE_PATH = "bundle";
+    private static final String DIRECTORY_PREFIX = "directory.";
+    private static final String FILE_PREFIX = "file.";
+    private static final String EXECUTABLE_FILE_PREFIX = "executable.";
+    private static final String LINK_PREFIX = "link.";
+
+    private static final Pattern OBJECT_ID_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String PRUNE_MARKER = "last-pruned";
+    // files created by stores running at the same time are not yet referenced by their bundle
+    private static final long UNREFERENCED_OBJECTS_GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    private final File cacheDir;
+    private final File nativeOutputDir;
+    private final Logger logger;
+
+    public NativeBundleCache(File cacheDir, File nativeOutputDir, Logger logger) {
+        this.cacheDir = cacheDir;
+        this.nativeOutputDir = nativeOutputDir;
+        this.logger = logger;
+    }
+
+    public static boolean isCacheable(String bundlerId) {
+        return CACHEABLE_BUNDLER_IDS.contains(bundlerId);
+    }
+
+    /**
+     * @param params parameters of the bundler, before the bundler added its default values
+     *
+     * @return the fingerprint, or null when the bundle can't be cached
+     */
+    public String getFingerprint(String bundlerId, Map<String, ? super Object> params, File deployDir, File additionalBundlerResources) {
+        String fingerprint = new BundlerParamsFingerprint(true)
+                .add("cacheRevision", CACHE_REVISION)
+                .add("pluginVersion", Optional.ofNullable(NativeBundleCache.class.getPackage().getImplementationVersion()).orElse("unknown"))
+                .add("bundler", bundlerId)
+                .add("java.vendor", System.getProperty("java.vendor"))
+                .add("java.version", System.getProperty("java.version"))
+                .add("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"))
+                .addDirectory("deployDir", deployDir)
+                .addDirectory("additionalBundlerResources", additionalBundlerResources)
+                .addAll(params, Collections.emptySet())
+                .getChecksum();
+        if( fingerprint == null ){
+            logger.info("Parameters of bundler " + bundlerId + " contain unknown types, skipped using the cache.");
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return the restored bundle, or null when there is no (complete) bundle for the given fingerprint
+     */
+    public File restore(String fingerprint) {
+        File bundleFile = getBundleFile(fingerprint);
+        if( !bundleFile.exists() ){
+            return null;
+        }
+        Properties bundle = new Properties();
+        try(InputStream bundleInput = Files.newInputStream(bundleFile.toPath())){
+            bundle.load(bundleInput);
+        } catch(IOException ex){
+            logger.warn("Couldn't read cached bundle " + bundleFile, ex);
+            return null;
+        }
+        String bundlePath = bundle.getProperty(BUNDLE_PATH);
+        if( bundlePath == null ){
+            return null;
+        }
+
+        // the bundle and all of its entries have to stay inside the output directory, as existing files get replaced
+        Path outputPath = nativeOutputDir.toPath().toAbsolutePath().normalize();
+        Path targetPath = outputPath.resolve(bundlePath).normalize();
+        boolean invalidPaths = !targetPath.startsWith(outputPath) || targetPath.equals(outputPath) || bundle.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(DIRECTORY_PREFIX) || key.startsWith(FILE_PREFIX) || key.startsWith(EXECUTABLE_FILE_PREFIX) || key.startsWith(LINK_PREFIX))
+                .map(key -> targetPath.resolve(key.substring(key.indexOf('.') + 1)).normalize())
+                .anyMatch(entryPath -> !entryPath.startsWith(targetPath));
+        boolean invalidObjects = bundle.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(FILE_PREFIX))
+                .map(bundle::getProperty)
+                .anyMatch(objectId -> !OBJECT_ID_PATTERN.matcher(objectId).matches());
+        if( invalidPaths || invalidObjects ){
+            logger.warn("Cached bundle " + bundleFile + " contains invalid paths, bundler has to run.");
+            return null;
+        }
+
+        List<String> missingObjects = bundle.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(FILE_PREFIX))
+                .map(bundle::getProperty)
+                .filter(objectId -> !getObjectFile(objectId).exists())
+                .collect(Collectors.toList());
+        if( !missingObjects.isEmpty() ){
+            logger.info("Cached bundle " + bundleFile + " is incomplete, bundler has to run.");
+            return null;
+        }
+
+        try{
+            // marks the bundle as used, see prune
+            Files.setLastModifiedTime(bundleFile.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            if( Files.exists(targetPath, LinkOption.NOFOLLOW_LINKS) ){
+                deleteRecursive(targetPath);
+            }
+            for( String key : bundle.stringPropertyNames() ){
+                if( key.startsWith(DIRECTORY_PREFIX) ){
+                    Files.createDirectories(targetPath.resolve(key.substring(DIRECTORY_PREFIX.length())));
+                }
+            }
+            for( String key : bundle.stringPropertyNames() ){
+                if( !key.startsWith(FILE_PREFIX) ){
+                    continue;
+                }
+                String relativeFile = key.substring(FILE_PREFIX.length());
+                Path targetFile = relativeFile.isEmpty() ? targetPath : targetPath.resolve(relativeFile);
+                Files.createDirectories(targetFile.getParent());
+                Files.copy(getObjectFile(bundle.getProperty(key)).toPath(), targetFile, StandardCopyOption.REPLACE_EXISTING);
+                if( bundle.containsKey(EXECUTABLE_FILE_PREFIX + relativeFile) ){
+                    targetFile.toFile().setExecutable(true, false);
+                }
+            }
+            for( String key : bundle.stringPropertyNames() ){
+                if( !key.startsWith(LINK_PREFIX) ){
+                    continue;
+                }
+                String relativeFile = key.substring(LINK_PREFIX.length());
+                Path targetFile = relativeFile.isEmpty() ? targetPath : targetPath.resolve(relativeFile);
+                Files.createDirectories(targetFile.getParent());
+                Files.createSymbolicLink(targetFile, Paths.get(bundle.getProperty(key)));
+            }
+        } catch(IOException ex){
+            logger.warn("Couldn't restore cached bundle " + bundleFile + ", bundler has to run.", ex);
+            return null;
+        }
+        logger.lifecycle("Restored bundle " + targetPath + " from cache.");
+        return targetPath.toFile();
+    }
+
+    public void store(String fingerprint, File bundle) {
+        if( bundle == null || !bundle.exists() ){
+            return;
+        }
+        Path outputPath = nativeOutputDir.toPath().toAbsolutePath().normalize();
+        Path bundlePath = bundle.toPath().toAbsolutePath().normalize();
+        if( !bundlePath.startsWith(outputPath) || bundlePath.equals(outputPath) ){
+            logger.info("Bundle " + bundle + " is not located inside the output directory, skipped adding it to the cache.");
+            return;
+        }
+
+        Properties cachedBundle = new Properties();
+        cachedBundle.setProperty(BUNDLE_PATH, outputPath.relativize(bundlePath).toString().replace('\\', '/'));
+        try{
+            Files.createDirectories(new File(cacheDir, "objects").toPath());
+            List<Path> bundleFiles = new ArrayList<>();
+            try(Stream<Path> walkstream = Files.walk(bundlePath)){
+                walkstream.forEach(bundleFiles::add);
+            }
+            for( Path bundleFile : bundleFiles ){
+                String relativeFile = bundlePath.relativize(bundleFile).toString().replace('\\', '/');
+                // links might point outside of the bundle, so they are not followed
+                if( Files.isSymbolicLink(bundleFile) ){
+                    cachedBundle.setProperty(LINK_PREFIX + relativeFile, Files.readSymbolicLink(bundleFile).toString());
+                    continue;
+                }
+                if( Files.isDirectory(bundleFile, LinkOption.NOFOLLOW_LINKS) ){
+                    cachedBundle.setProperty(DIRECTORY_PREFIX + relativeFile, "");
+                    continue;
+                }
+                cachedBundle.setProperty(FILE_PREFIX + relativeFile, storeObject(bundleFile));
+                if( Files.isExecutable(bundleFile) ){
+                    cachedBundle.setProperty(EXECUTABLE_FILE_PREFIX + relativeFile, "");
+                }
+            }
+
+            // the bundle only gets visible after all of its files were stored
+            File bundleFile = getBundleFile(fingerprint);
+            Files.createDirectories(bundleFile.getParentFile().toPath());
+            Path temporaryBundleFile = Files.createTempFile(bundleFile.getParentFile().toPath(), fingerprint, ".tmp");
+            try(OutputStream bundleOutput = Files.newOutputStream(temporaryBundleFile)){
+                cachedBundle.store(bundleOutput, null);
+            }
+            Files.move(temporaryBundleFile, bundleFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Stored bundle " + bundle + " inside cache.");
+        } catch(IOException | NoSuchAlgorithmException ex){
+            logger.warn("Couldn't store bundle " + bundle + " inside cache.", ex);
+        }
+    }
+
+    private String storeObject(Path file) throws IOException, NoSuchAlgorithmException {
+        Path objectsDir = new File(cacheDir, "objects").toPath();
+        Path temporaryObject = Files.createTempFile(objectsDir, "object", ".tmp");
+        try{
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try(InputStream fileContent = new DigestInputStream(Files.newInputStream(file), digest)){
+                Files.copy(fileContent, temporaryObject, StandardCopyOption.REPLACE_EXISTING);
+            }
+            StringBuilder objectId = new StringBuilder();
+            for( byte checksumByte : digest.digest() ){
+                objectId.append(String.format("%02x", checksumByte));
+            }
+            File objectFile = getObjectFile(objectId.toString());
+            if( objectFile.exists() ){
+                // protects it from being pruned before its bundle got stored
+                Files.setLastModifiedTime(objectFile.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.createDirectories(objectFile.getParentFile().toPath());
+                // other bundlers (or builds) might store the same content at the same time
+                Files.move(temporaryObject, objectFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return objectId.toString();
+        } finally{
+            Files.deleteIfExists(temporaryObject);
+        }
+    }
+
+    /**
+     * Removes all bundles which were neither stored nor restored within the given days, afterwards all files not
+     * referenced by any remaining bundle. Only runs once a day per cache directory.
+     *
+     * @param retentionDays days to keep unused bundles, 0 (or less) keeps them forever
+     */
+    public void prune(int retentionDays) {
+        File bundlesDir = new File(cacheDir, "bundles");
+        File pruneMarker = new File(cacheDir, PRUNE_MARKER);
+        long now = System.currentTimeMillis();
+        if( retentionDays <= 0 || !bundlesDir.isDirectory() || pruneMarker.lastModified() > now - TimeUnit.DAYS.toMillis(1) ){
+            return;
+        }
+        try{
+            if( !pruneMarker.exists() ){
+                Files.createFile(pruneMarker.toPath());
+            }
+            Files.setLastModifiedTime(pruneMarker.toPath(), FileTime.fromMillis(now));
+
+            long oldestUsage = now - TimeUnit.DAYS.toMillis(retentionDays);
+            Set<String> referencedObjects = new HashSet<>();
+            int removedBundles = 0;
+            for( File bundleFile : Optional.ofNullable(bundlesDir.listFiles()).orElse(new File[0]) ){
+                if( bundleFile.lastModified() < oldestUsage ){
+                    // left-over temporary files of failed stores are removed too
+                    Files.deleteIfExists(bundleFile.toPath());
+                    removedBundles++;
+                    continue;
+                }
+                if( !bundleFile.getName().endsWith(".properties") ){
+                    continue;
+                }
+                Properties bundle = new Properties();
+                try(InputStream bundleInput = Files.newInputStream(bundleFile.toPath())){
+                    bundle.load(bundleInput);
+                }
+                bundle.stringPropertyNames().stream()
+                        .filter(key -> key.startsWith(FILE_PREFIX))
+                        .map(bundle::getProperty)
+                        .forEach(referencedObjects::add);
+            }
+
+            int removedObjects = 0;
+            List<Path> objectFiles = new ArrayList<>();
+            Path objectsDir = new File(cacheDir, "objects").toPath();
+            if( Files.isDirectory(objectsDir) ){
+                try(Stream<Path> walkstream = Files.walk(objectsDir)){
+                    walkstream.filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)).forEach(objectFiles::add);
+                }
+            }
+            for( Path objectFile : objectFiles ){
+                if( referencedObjects.contains(objectFile.getFileName().toString()) ){
+                    continue;
+                }
+                if( Files.getLastModifiedTime(objectFile, LinkOption.NOFOLLOW_LINKS).toMillis() < now - UNREFERENCED_OBJECTS_GRACE_PERIOD ){
+                    Files.deleteIfExists(objectFile);
+                    removedObjects++;
+                }
+            }
+            logger.info("Pruned cache " + cacheDir + ", removed " + removedBundles + " bundles and " + removedObjects + " files.");
+        } catch(IOException ex){
+            logger.warn("Couldn't prune cache " + cacheDir, ex);
+        }
+    }
+
+    /*
+     * Does not follow symbolic links, only removing the links themselves.
+     */
+    private static void deleteRecursive(Path path) throws IOException {
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException ex) throws IOException {
+                if( ex != null ){
+                    throw ex;
+                }
+                Files.delete(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private File getObjectFile(String objectId) {
+        return new File(new File(new File(cacheDir, "objects"), objectId.substring(0, 2)), objectId);
+    }
+
+    private File getBundleFile(String fingerprint) {
+        return new File(new File(cacheDir, "bundles"), fingerprint + ".properties");
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import com.oracle.tools.packager.Log;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * The logger of the packager is some static field, which would be replaced by every task running in parallel.
+ * This logger gets installed only once and forwards all messages to the logger of the task running on the
+ * current thread.
+ *
+ * @author Danny Althoff
+ */
+public class PackagerLogger extends Log.Logger {
+
+    private static final PackagerLogger INSTANCE = new PackagerLogger();
+
+    private final ThreadLocal<Logger> taskLogger = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> taskVerbose = new ThreadLocal<>();
+
+    private PackagerLogger() {
+        super(false);
+    }
+
+    /**
+     * Forwards all messages of the packager created on the current thread to the given logger.
+     */
+    public static synchronized void attach(Logger logger, boolean verbose) {
+        INSTANCE.taskLogger.set(logger);
+        INSTANCE.taskVerbose.set(verbose);
+        Log.setLogger(INSTANCE);
+    }
+
+    public static void detach() {
+        INSTANCE.taskLogger.remove();
+        INSTANCE.taskVerbose.remove();
+    }
+
+    @Override
+    public boolean isVerbose() {
+        return Boolean.TRUE.equals(taskVerbose.get());
+    }
+
+    @Override
+    public void setVerbose(boolean verbose) {
+        taskVerbose.set(verbose);
+    }
+
+    @Override
+    public void info(String msg) {
+        getLogger().lifecycle(msg);
+    }
+
+    @Override
+    public void verbose(String msg) {
+        if( isVerbose() ){
+            getLogger().lifecycle(msg);
+        } else {
+            getLogger().info(msg);
+        }
+    }
+
+    @Override
+    public void verbose(Throwable t) {
+        if( isVerbose() ){
+            getLogger().lifecycle(t.getMessage(), t);
+        } else {
+            getLogger().info(t.getMessage(), t);
+        }
+    }
+
+    @Override
+    public void debug(String msg) {
+        getLogger().debug(msg);
+    }
+
+    @Override
+    public void debug(Throwable t) {
+        getLogger().debug(t.getMessage(), t);
+    }
+
+    private Logger getLogger() {
+        Logger logger = taskLogger.get();
+        if( logger == null ){
+            // message from some thread not started by any task
+            return Logging.getLogger(PackagerLogger.class);
+        }
+        return logger;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Prefixes all messages of some logger, making it possible to tell apart messages of bundlers running at the
+ * same time. The logger-interface has a lot of methods, so instead of implementing all of them, the message
+ * (being the first string-parameter of every logging method) gets replaced by some proxy.
+ *
+ * @author Danny Althoff
+ */
+public class PrefixedLogger {
+
+    private PrefixedLogger() {
+        // utility class
+    }
+
+    public static Logger create(Logger logger, String prefix) {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class}, (proxy, method, args) -> {
+            if( args != null ){
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                for( int i = 0; i < parameterTypes.length; i++ ){
+                    if( parameterTypes[i] == String.class ){
+                        if( args[i] != null ){
+                            args[i] = prefix + args[i];
+                        }
+                        break;
+                    }
+                }
+            }
+            try{
+                return method.invoke(logger, args);
+            } catch(InvocationTargetException ex){
+                throw ex.getCause();
+            }
+        });
+    }
+}
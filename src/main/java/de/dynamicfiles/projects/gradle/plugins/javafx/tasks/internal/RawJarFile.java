@@ -0,0 +1,373 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the central directory of some jar-file, making it possible to copy the (still compressed) data
+ * of every entry without inflating it. ZIP64 and encrypted entries are not supported, a ZipException
+ * is thrown for such files.
+ *
+ * @author Danny Althoff
+ */
+public class RawJarFile implements Closeable {
+
+    static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    static final int LOCAL_HEADER_LENGTH = 30;
+    static final int CENTRAL_HEADER_LENGTH = 46;
+    static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+
+    static final int FLAG_ENCRYPTED = 0x0001;
+    static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+
+    private final File file;
+    private final FileChannel channel;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public RawJarFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try{
+            readCentralDirectory();
+        } catch(IOException | RuntimeException ex){
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return all entries in the order of the central directory
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.values()));
+    }
+
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Transfers the stored bytes of the given entry, as they are, into the target channel.
+     */
+    public void transferRawData(Entry entry, FileChannel target) throws IOException {
+        long position = getDataOffset(entry);
+        long remaining = entry.getCompressedSize();
+        while(remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if( transferred <= 0 ){
+                throw new EOFException("Unexpected end of file while copying entry " + entry.getName() + " of " + file);
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    /**
+     * @return the uncompressed content of the given entry
+     */
+    public InputStream getInputStream(Entry entry) throws IOException {
+        InputStream rawData = new RegionInputStream(getDataOffset(entry), entry.getCompressedSize());
+        if( entry.getMethod() == ZipEntry.STORED ){
+            return rawData;
+        }
+        return new RawInflaterInputStream(rawData);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long getDataOffset(Entry entry) throws IOException {
+        if( entry.dataOffset < 0 ){
+            ByteBuffer localHeader = read(entry.getLocalHeaderOffset(), LOCAL_HEADER_LENGTH);
+            if( localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE ){
+                throw new ZipException("Invalid local header for entry " + entry.getName() + " inside " + file);
+            }
+            int nameLength = Short.toUnsignedInt(localHeader.getShort(26));
+            int extraLength = Short.toUnsignedInt(localHeader.getShort(28));
+            entry.dataOffset = entry.getLocalHeaderOffset() + LOCAL_HEADER_LENGTH + nameLength + extraLength;
+        }
+        return entry.dataOffset;
+    }
+
+    private void readCentralDirectory() throws IOException {
+        long fileSize = channel.size();
+        int tailLength = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_LENGTH + 0xFFFF);
+        ByteBuffer tail = read(fileSize - tailLength, tailLength);
+
+        int endOfCentralDirectory = -1;
+        for( int i = tailLength - END_OF_CENTRAL_DIRECTORY_LENGTH; i >= 0; i-- ){
+            if( tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE ){
+                endOfCentralDirectory = i;
+                break;
+            }
+        }
+        if( endOfCentralDirectory < 0 ){
+            throw new ZipException("Could not find central directory of " + file);
+        }
+
+        int totalEntries = Short.toUnsignedInt(tail.getShort(endOfCentralDirectory + 10));
+        long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(endOfCentralDirectory + 12));
+        long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(endOfCentralDirectory + 16));
+        if( totalEntries == 0xFFFF || centralDirectorySize == 0xFFFFFFFFL || centralDirectoryOffset == 0xFFFFFFFFL ){
+            throw new ZipException("ZIP64-files are not supported: " + file);
+        }
+
+        ByteBuffer centralDirectory = read(centralDirectoryOffset, (int) centralDirectorySize);
+        int position = 0;
+        for( int i = 0; i < totalEntries; i++ ){
+            if( centralDirectory.getInt(position) != CENTRAL_HEADER_SIGNATURE ){
+                throw new ZipException("Invalid central directory inside " + file);
+            }
+            Entry entry = new Entry();
+            entry.versionMadeBy = Short.toUnsignedInt(centralDirectory.getShort(position + 4));
+            entry.versionNeeded = Short.toUnsignedInt(centralDirectory.getShort(position + 6));
+            entry.flags = Short.toUnsignedInt(centralDirectory.getShort(position + 8));
+            entry.method = Short.toUnsignedInt(centralDirectory.getShort(position + 10));
+            entry.dosTime = centralDirectory.getInt(position + 12);
+            entry.crc = Integer.toUnsignedLong(centralDirectory.getInt(position + 16));
+            entry.compressedSize = Integer.toUnsignedLong(centralDirectory.getInt(position + 20));
+            entry.size = Integer.toUnsignedLong(centralDirectory.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(centralDirectory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(centralDirectory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(centralDirectory.getShort(position + 32));
+            entry.internalAttributes = Short.toUnsignedInt(centralDirectory.getShort(position + 36));
+            entry.externalAttributes = centralDirectory.getInt(position + 38);
+            entry.localHeaderOffset = Integer.toUnsignedLong(centralDirectory.getInt(position + 42));
+
+            entry.nameBytes = new byte[nameLength];
+            entry.extra = new byte[extraLength];
+            entry.comment = new byte[commentLength];
+            centralDirectory.position(position + CENTRAL_HEADER_LENGTH);
+            centralDirectory.get(entry.nameBytes);
+            centralDirectory.get(entry.extra);
+            centralDirectory.get(entry.comment);
+            entry.name = new String(entry.nameBytes, StandardCharsets.UTF_8);
+
+            if( entry.compressedSize == 0xFFFFFFFFL || entry.size == 0xFFFFFFFFL || entry.localHeaderOffset == 0xFFFFFFFFL ){
+                throw new ZipException("ZIP64-entries are not supported: " + entry.name + " inside " + file);
+            }
+            if( (entry.flags & FLAG_ENCRYPTED) != 0 ){
+                throw new ZipException("Encrypted entries are not supported: " + entry.name + " inside " + file);
+            }
+            if( entry.method != ZipEntry.STORED && entry.method != ZipEntry.DEFLATED ){
+                throw new ZipException("Unsupported compression method " + entry.method + " for entry " + entry.name + " inside " + file);
+            }
+
+            // first one wins, same as java.util.zip.ZipFile
+            entries.putIfAbsent(entry.name, entry);
+            position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while(buffer.hasRemaining()) {
+            if( channel.read(buffer, position + buffer.position()) < 0 ){
+                throw new EOFException("Unexpected end of file " + file);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public static class Entry {
+
+        private String name;
+        private byte[] nameBytes;
+        private int versionMadeBy;
+        private int versionNeeded;
+        private int flags;
+        private int method;
+        private int dosTime;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private int internalAttributes;
+        private int externalAttributes;
+        private long localHeaderOffset;
+        private byte[] extra;
+        private byte[] comment;
+        private long dataOffset = -1;
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLocalHeaderOffset() {
+            return localHeaderOffset;
+        }
+
+        byte[] getNameBytes() {
+            return nameBytes;
+        }
+
+        int getVersionMadeBy() {
+            return versionMadeBy;
+        }
+
+        int getVersionNeeded() {
+            return versionNeeded;
+        }
+
+        int getFlags() {
+            return flags;
+        }
+
+        int getDosTime() {
+            return dosTime;
+        }
+
+        int getInternalAttributes() {
+            return internalAttributes;
+        }
+
+        int getExternalAttributes() {
+            return externalAttributes;
+        }
+
+        byte[] getExtra() {
+            return extra;
+        }
+
+        byte[] getComment() {
+            return comment;
+        }
+    }
+
+    /*
+     * Reads some region of the underlying channel using absolute positions, so multiple streams can be used at once.
+     */
+    private class RegionInputStream extends InputStream {
+
+        private long position;
+        private long remaining;
+
+        RegionInputStream(long position, long length) {
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int count = read(single, 0, 1);
+            if( count <= 0 ){
+                return -1;
+            }
+            return single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if( remaining <= 0 ){
+                return -1;
+            }
+            int toRead = (int) Math.min(len, remaining);
+            int count = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if( count < 0 ){
+                throw new EOFException("Unexpected end of file " + file);
+            }
+            position += count;
+            remaining -= count;
+            return count;
+        }
+    }
+
+    /*
+     * Raw deflate-streams (like inside zip-files) might need some additional dummy byte at the end,
+     * this is the same trick as done inside java.util.zip.ZipFile.
+     */
+    private static class RawInflaterInputStream extends InflaterInputStream {
+
+        private boolean eof = false;
+        private boolean closed = false;
+
+        RawInflaterInputStream(InputStream in) {
+            super(in, new Inflater(true), 8192);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if( eof ){
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if( len == -1 ){
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if( closed ){
+                return;
+            }
+            closed = true;
+            inf.end();
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writes some jar-file by copying already compressed entries from other jar-files without touching
+ * their data, only new entries are getting compressed. All local headers are written without data
+ * descriptor, the sizes are written into the header after the entry-data was written. When some
+ * compression level is set, all entries are written using that level (0 stores them uncompressed).
+ *
+ * @author Danny Althoff
+ */
+public class RawJarWriter implements Closeable {
+
+    private static final int VERSION_NEEDED_STORED = 10;
+    private static final int VERSION_NEEDED_DEFLATED = 20;
+    private static final int FLAG_UTF8_NAMES = 0x0800;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Copy compressed entries as they are, new entries are compressed using the default compression level.
+     */
+    public static final int KEEP_COMPRESSION = -1;
+
+    /**
+     * Same as used by gradle for reproducible archives: 1980-02-01 00:00:00 (local time), which avoids
+     * any timezone-related overflow of the MS-DOS date.
+     */
+    public static final long CONSTANT_TIMESTAMP = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+
+    private final FileChannel channel;
+    private final List<CentralRecord> centralRecords = new ArrayList<>();
+    private final Set<String> writtenEntryNames = new HashSet<>();
+    private boolean reproducible = false;
+    private int compressionLevel = KEEP_COMPRESSION;
+
+    public RawJarWriter(File targetFile) throws IOException {
+        this.channel = FileChannel.open(targetFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * When set, all entries get the same timestamp and no extra fields or comments are copied.
+     */
+    public void setReproducible(boolean reproducible) {
+        this.reproducible = reproducible;
+    }
+
+    /**
+     * @param compressionLevel KEEP_COMPRESSION, or 0 (no compression) up to 9 (best compression), all entries are
+     * compressed again using that level
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if( compressionLevel < KEEP_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION ){
+            throw new IllegalArgumentException("Compression level has to be between " + KEEP_COMPRESSION + " and " + Deflater.BEST_COMPRESSION + ", but was " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean contains(String entryName) {
+        return writtenEntryNames.contains(entryName);
+    }
+
+    public Set<String> getEntryNames() {
+        return Collections.unmodifiableSet(writtenEntryNames);
+    }
+
+    /**
+     * Copies the entry without inflating and deflating its content, unless some other compression level
+     * was set.
+     *
+     * @return false, when some entry with that name already was written
+     */
+    public boolean copyEntry(RawJarFile source, RawJarFile.Entry entry) throws IOException {
+        if( writtenEntryNames.contains(entry.getName()) ){
+            return false;
+        }
+        boolean isRawCopyPossible = compressionLevel == KEEP_COMPRESSION || (compressionLevel == Deflater.NO_COMPRESSION && entry.getMethod() == ZipEntry.STORED);
+        if( !isRawCopyPossible ){
+            try(InputStream content = source.getInputStream(entry)){
+                return writeEntry(entry.getName(), content, entry.getDosTime(), entry.getExternalAttributes());
+            }
+        }
+        writtenEntryNames.add(entry.getName());
+        CentralRecord record = new CentralRecord();
+        record.nameBytes = entry.getNameBytes();
+        record.versionMadeBy = entry.getVersionMadeBy();
+        record.versionNeeded = entry.getVersionNeeded();
+        // sizes are known, so no data descriptor is required
+        record.flags = entry.getFlags() & ~RawJarFile.FLAG_DATA_DESCRIPTOR;
+        record.method = entry.getMethod();
+        record.dosTime = reproducible ? toDosTime(CONSTANT_TIMESTAMP) : entry.getDosTime();
+        record.crc = entry.getCrc();
+        record.compressedSize = entry.getCompressedSize();
+        record.size = entry.getSize();
+        record.internalAttributes = entry.getInternalAttributes();
+        record.externalAttributes = entry.getExternalAttributes();
+        if( !reproducible ){
+            // might contain timestamps or user-ids
+            record.extra = entry.getExtra();
+            record.comment = entry.getComment();
+        }
+        record.localHeaderOffset = channel.position();
+
+        writeLocalHeader(record);
+        source.transferRawData(entry, channel);
+        addCentralRecord(record);
+        return true;
+    }
+
+    public boolean writeEntry(String entryName, byte[] content, long lastModified) throws IOException {
+        return writeEntry(entryName, new ByteArrayInputStream(content), lastModified);
+    }
+
+    /**
+     * Compresses the given content as new entry.
+     *
+     * @return false, when some entry with that name already was written
+     */
+    public boolean writeEntry(String entryName, InputStream content, long lastModified) throws IOException {
+        return writeEntry(entryName, content, toDosTime(lastModified), 0);
+    }
+
+    /**
+     * Compresses the given content as replacement for the entry of some other jar-file, keeping its timestamp and attributes.
+     *
+     * @return false, when some entry with that name already was written
+     */
+    public boolean writeEntry(RawJarFile.Entry replacedEntry, byte[] content) throws IOException {
+        return writeEntry(replacedEntry.getName(), new ByteArrayInputStream(content), replacedEntry.getDosTime(), replacedEntry.getExternalAttributes());
+    }
+
+    private boolean writeEntry(String entryName, InputStream content, int dosTime, int externalAttributes) throws IOException {
+        if( !writtenEntryNames.add(entryName) ){
+            return false;
+        }
+        boolean isDirectory = entryName.endsWith("/");
+        boolean isStored = isDirectory || compressionLevel == Deflater.NO_COMPRESSION;
+
+        CentralRecord record = new CentralRecord();
+        record.nameBytes = entryName.getBytes(StandardCharsets.UTF_8);
+        record.method = isStored ? ZipEntry.STORED : ZipEntry.DEFLATED;
+        record.versionNeeded = isStored ? VERSION_NEEDED_STORED : VERSION_NEEDED_DEFLATED;
+        record.versionMadeBy = record.versionNeeded;
+        record.flags = FLAG_UTF8_NAMES;
+        record.dosTime = reproducible ? toDosTime(CONSTANT_TIMESTAMP) : dosTime;
+        record.externalAttributes = externalAttributes;
+        record.localHeaderOffset = channel.position();
+
+        // sizes and checksum are written after the data was written
+        writeLocalHeader(record);
+
+        if( isDirectory ){
+            addCentralRecord(record);
+            return true;
+        }
+
+        CRC32 crc = new CRC32();
+        byte[] inputBuffer = new byte[BUFFER_SIZE];
+        int count;
+        if( isStored ){
+            long size = 0;
+            while((count = content.read(inputBuffer)) > 0) {
+                crc.update(inputBuffer, 0, count);
+                writeFully(inputBuffer, count);
+                size += count;
+            }
+            record.crc = crc.getValue();
+            record.compressedSize = size;
+            record.size = size;
+        } else {
+            int level = compressionLevel == KEEP_COMPRESSION ? Deflater.DEFAULT_COMPRESSION : compressionLevel;
+            Deflater deflater = new Deflater(level, true);
+            try{
+                byte[] outputBuffer = new byte[BUFFER_SIZE];
+                while((count = content.read(inputBuffer)) > 0) {
+                    crc.update(inputBuffer, 0, count);
+                    deflater.setInput(inputBuffer, 0, count);
+                    while(!deflater.needsInput()) {
+                        writeFully(outputBuffer, deflater.deflate(outputBuffer));
+                    }
+                }
+                deflater.finish();
+                while(!deflater.finished()) {
+                    writeFully(outputBuffer, deflater.deflate(outputBuffer));
+                }
+                record.crc = crc.getValue();
+                record.compressedSize = deflater.getBytesWritten();
+                record.size = deflater.getBytesRead();
+            } finally{
+                deflater.end();
+            }
+        }
+        updateLocalHeaderSizes(record);
+        addCentralRecord(record);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try{
+            long centralDirectoryOffset = channel.position();
+            for( CentralRecord record : centralRecords ){
+                ByteBuffer header = newBuffer(RawJarFile.CENTRAL_HEADER_LENGTH + record.nameBytes.length + record.extra.length + record.comment.length);
+                header.putInt(RawJarFile.CENTRAL_HEADER_SIGNATURE);
+                header.putShort((short) record.versionMadeBy);
+                header.putShort((short) record.versionNeeded);
+                header.putShort((short) record.flags);
+                header.putShort((short) record.method);
+                header.putInt(record.dosTime);
+                header.putInt((int) record.crc);
+                header.putInt((int) record.compressedSize);
+                header.putInt((int) record.size);
+                header.putShort((short) record.nameBytes.length);
+                header.putShort((short) record.extra.length);
+                header.putShort((short) record.comment.length);
+                // disk number start
+                header.putShort((short) 0);
+                header.putShort((short) record.internalAttributes);
+                header.putInt(record.externalAttributes);
+                header.putInt((int) record.localHeaderOffset);
+                header.put(record.nameBytes);
+                header.put(record.extra);
+                header.put(record.comment);
+                writeFully(header);
+            }
+            long centralDirectorySize = channel.position() - centralDirectoryOffset;
+            if( centralDirectoryOffset > 0xFFFFFFFFL || centralDirectorySize > 0xFFFFFFFFL ){
+                throw new ZipException("Jar-file is too big, ZIP64 is not supported.");
+            }
+
+            ByteBuffer endOfCentralDirectory = newBuffer(RawJarFile.END_OF_CENTRAL_DIRECTORY_LENGTH);
+            endOfCentralDirectory.putInt(RawJarFile.END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            // number of this disk and disk with central directory
+            endOfCentralDirectory.putShort((short) 0);
+            endOfCentralDirectory.putShort((short) 0);
+            endOfCentralDirectory.putShort((short) centralRecords.size());
+            endOfCentralDirectory.putShort((short) centralRecords.size());
+            endOfCentralDirectory.putInt((int) centralDirectorySize);
+            endOfCentralDirectory.putInt((int) centralDirectoryOffset);
+            // no comment
+            endOfCentralDirectory.putShort((short) 0);
+            writeFully(endOfCentralDirectory);
+        } finally{
+            channel.close();
+        }
+    }
+
+    /**
+     * Converts to MS-DOS date and time (local time, 2 second precision), date inside the upper 16 bits.
+     */
+    public static int toDosTime(long javaTime) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(javaTime);
+        int year = calendar.get(Calendar.YEAR);
+        if( year < 1980 ){
+            // 1980-01-01 00:00:00
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private void addCentralRecord(CentralRecord record) throws ZipException {
+        if( centralRecords.size() == 0xFFFF ){
+            throw new ZipException("Too many entries, ZIP64 is not supported.");
+        }
+        if( record.localHeaderOffset > 0xFFFFFFFFL || record.compressedSize > 0xFFFFFFFFL || record.size > 0xFFFFFFFFL ){
+            throw new ZipException("Jar-file is too big, ZIP64 is not supported.");
+        }
+        centralRecords.add(record);
+    }
+
+    private void writeLocalHeader(CentralRecord record) throws IOException {
+        ByteBuffer header = newBuffer(RawJarFile.LOCAL_HEADER_LENGTH + record.nameBytes.length);
+        header.putInt(RawJarFile.LOCAL_HEADER_SIGNATURE);
+        header.putShort((short) record.versionNeeded);
+        header.putShort((short) record.flags);
+        header.putShort((short) record.method);
+        header.putInt(record.dosTime);
+        header.putInt((int) record.crc);
+        header.putInt((int) record.compressedSize);
+        header.putInt((int) record.size);
+        header.putShort((short) record.nameBytes.length);
+        // no extra fields inside local header
+        header.putShort((short) 0);
+        header.put(record.nameBytes);
+        writeFully(header);
+    }
+
+    private void updateLocalHeaderSizes(CentralRecord record) throws IOException {
+        ByteBuffer sizes = newBuffer(12);
+        sizes.putInt((int) record.crc);
+        sizes.putInt((int) record.compressedSize);
+        sizes.putInt((int) record.size);
+        sizes.flip();
+        long position = record.localHeaderOffset + 14;
+        while(sizes.hasRemaining()) {
+            position += channel.write(sizes, position);
+        }
+    }
+
+    private ByteBuffer newBuffer(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeFully(byte[] buffer, int length) throws IOException {
+        if( length > 0 ){
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+            while(byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static class CentralRecord {
+
+        private byte[] nameBytes;
+        private int versionMadeBy;
+        private int versionNeeded;
+        private int flags;
+        private int method;
+        private int dosTime;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private int internalAttributes;
+        private int externalAttributes;
+        private long localHeaderOffset;
+        private byte[] extra = new byte[0];
+        private byte[] comment = new byte[0];
+    }
+}
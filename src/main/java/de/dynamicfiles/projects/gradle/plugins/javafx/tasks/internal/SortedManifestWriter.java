@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * java.util.jar.Manifest writes all attributes in the order of some HashMap, this writes them sorted by name
+ * (having "Manifest-Version" as first attribute, as required by the specification).
+ *
+ * @author Danny Althoff
+ */
+public final class SortedManifestWriter {
+
+    private static final int MAX_LINE_LENGTH = 72;
+    private static final byte[] NEWLINE = {'\r', '\n'};
+
+    private SortedManifestWriter() {
+        // utility class
+    }
+
+    public static byte[] toBytes(Manifest manifest) {
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+
+        Attributes mainAttributes = manifest.getMainAttributes();
+        Object manifestVersion = mainAttributes.get(Attributes.Name.MANIFEST_VERSION);
+        writeLine(manifestBytes, Attributes.Name.MANIFEST_VERSION.toString(), manifestVersion == null ? "1.0" : String.valueOf(manifestVersion));
+        writeAttributes(manifestBytes, mainAttributes);
+        manifestBytes.write(NEWLINE, 0, NEWLINE.length);
+
+        new TreeMap<>(manifest.getEntries()).forEach((sectionName, attributes) -> {
+            writeLine(manifestBytes, "Name", sectionName);
+            writeAttributes(manifestBytes, attributes);
+            manifestBytes.write(NEWLINE, 0, NEWLINE.length);
+        });
+        return manifestBytes.toByteArray();
+    }
+
+    private static void writeAttributes(ByteArrayOutputStream manifestBytes, Attributes attributes) {
+        Map<String, String> sortedAttributes = new TreeMap<>();
+        attributes.forEach((name, value) -> sortedAttributes.put(String.valueOf(name), String.valueOf(value)));
+        sortedAttributes.remove(Attributes.Name.MANIFEST_VERSION.toString());
+        sortedAttributes.forEach((name, value) -> writeLine(manifestBytes, name, value));
+    }
+
+    /*
+     * Lines are not allowed to be longer than 72 bytes, continuation lines start with a single space.
+     * Multi-byte characters are never split.
+     */
+    private static void writeLine(ByteArrayOutputStream manifestBytes, String name, String value) {
+        byte[] line = (name + ": " + value).getBytes(StandardCharsets.UTF_8);
+        int lineLength = 0;
+        for( int i = 0; i < line.length; i++ ){
+            boolean isContinuationByte = (line[i] & 0xC0) == 0x80;
+            if( !isContinuationByte && lineLength + getCharacterLength(line[i]) > MAX_LINE_LENGTH ){
+                manifestBytes.write(NEWLINE, 0, NEWLINE.length);
+                manifestBytes.write(' ');
+                lineLength = 1;
+            }
+            manifestBytes.write(line[i]);
+            lineLength++;
+        }
+        manifestBytes.write(NEWLINE, 0, NEWLINE.length);
+    }
+
+    private static int getCharacterLength(byte firstByte) {
+        if( (firstByte & 0xE0) == 0xC0 ){
+            return 2;
+        }
+        if( (firstByte & 0xF0) == 0xE0 ){
+            return 3;
+        }
+        if( (firstByte & 0xF8) == 0xF0 ){
+            return 4;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order of jar-entries required for starting the application, read from some class-list recorded by a training run
+ * (like the one written by "-XX:DumpLoadedClassList", one class per line, using "/" or "." as separator).
+ * Startup classes come first (in the order they were loaded), followed by all FXML-files and stylesheets.
+ *
+ * @author Danny Althoff
+ */
+public class StartupEntryOrder {
+
+    private final Map<String, Integer> startupClassPositions = new HashMap<>();
+
+    public StartupEntryOrder(File classListFile) throws IOException {
+        for( String line : Files.readAllLines(classListFile.toPath(), StandardCharsets.UTF_8) ){
+            String trimmedLine = line.trim();
+            // newer JDKs write comments and lambda-proxies into that list
+            if( trimmedLine.isEmpty() || trimmedLine.startsWith("#") || trimmedLine.startsWith("@") ){
+                continue;
+            }
+            String className = trimmedLine.split("\\s+")[0];
+            startupClassPositions.putIfAbsent(className.replace('.', '/') + ".class", startupClassPositions.size());
+        }
+    }
+
+    public boolean isStartupEntry(String entryName) {
+        return startupClassPositions.containsKey(entryName) || isStartupResource(entryName);
+    }
+
+    /**
+     * All other entries are treated as equal, so sorting with this keeps their order.
+     */
+    public Comparator<String> getComparator() {
+        return Comparator.comparingInt(this::getPosition);
+    }
+
+    private int getPosition(String entryName) {
+        Integer startupClassPosition = startupClassPositions.get(entryName);
+        if( startupClassPosition != null ){
+            return startupClassPosition;
+        }
+        if( isStartupResource(entryName) ){
+            return startupClassPositions.size();
+        }
+        return startupClassPositions.size() + 1;
+    }
+
+    private boolean isStartupResource(String entryName) {
+        return entryName.endsWith(".fxml") || entryName.endsWith(".css") || entryName.endsWith(".bss");
+    }
+}
@@ -93,6 +93,10 @@ public class Workarounds {
         String newConfigFileName = appName.substring(0, appName.lastIndexOf("."));
         Path appPath = nativeOutputDir.toPath().resolve(appName).resolve("app");
         Path oldConfigFile = appPath.resolve(appName + CONFIG_FILE_EXTENSION);
+        if( !Files.exists(oldConfigFile) && Files.exists(appPath.resolve(newConfigFileName + CONFIG_FILE_EXTENSION)) ){
+            // application image was updated incrementally
+            return;
+        }
         try{
             Files.move(oldConfigFile, appPath.resolve(newConfigFileName + CONFIG_FILE_EXTENSION), StandardCopyOption.ATOMIC_MOVE);
         } catch(IOException ex){
@@ -285,8 +289,14 @@ public class Workarounds {
         // this is the more easy way ;)
         List<RelativeFileSet> appResourcesList = new ArrayList<>();
         RelativeFileSet appResources = StandardBundlerParam.APP_RESOURCES.fetchFrom(params);
-        // original application resources
-        appResourcesList.add(appResources);
+        Object existingAppResourcesList = params.get(StandardBundlerParam.APP_RESOURCES.getID() + "List");
+        if( existingAppResourcesList instanceof List ){
+            // original application resources and additional application resources
+            ((List<?>) existingAppResourcesList).forEach(resources -> appResourcesList.add((RelativeFileSet) resources));
+        } else {
+            // original application resources
+            appResourcesList.add(appResources);
+        }
         // additional filename-fixed cfg-files
         appResourcesList.add(new RelativeFileSet(appPath.toFile(), filenameFixedConfigFiles));
 
@@ -299,7 +309,7 @@ public class Workarounds {
                 getLogger().info("Modifying application resources for native launcher issue 205 by copying into temporary folder (" + tempResourcesDirAsFile.toString() + ").");
                 for( RelativeFileSet sources : appResourcesList ){
                     File baseDir = sources.getBaseDirectory();
-                    for( String fname : appResources.getIncludedFiles() ){
+                    for( String fname : sources.getIncludedFiles() ){
                         IOUtils.copyFile(new File(baseDir, fname), new File(tempResourcesDirAsFile, fname));
                     }
                 }
@@ -32,9 +32,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Consumer;
 import org.gradle.api.GradleException;
-import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 
 /**
@@ -43,25 +45,44 @@ import org.gradle.api.logging.Logger;
  */
 public abstract class JfxAbstractWorker {
 
-    protected void addDeployDirToSystemClassloader(Project project, JavaFXGradlePluginExtension ext) {
+    private static final Set<URL> ADDED_DEPLOY_DIRS = new HashSet<>();
+
+    protected void addDeployDirToSystemClassloader(JfxWorkerContext context, JavaFXGradlePluginExtension ext) {
         // add deployDir to system classpath
         if( ext.getDeployDir() != null ){
+            if( context.isRunningIsolated() ){
+                // already part of the worker classpath
+                return;
+            }
 
-            File targetDeployDir = getAbsoluteOrProjectRelativeFile(project, ext.getDeployDir(), ext.isCheckForAbsolutePaths());
+            File targetDeployDir = getAbsoluteOrProjectRelativeFile(context, ext.getDeployDir(), ext.isCheckForAbsolutePaths());
             if( !targetDeployDir.exists() ){
-                project.getLogger().info("Adding 'deploy' directory wasn't successful, because it does not exist! (" + targetDeployDir.getAbsolutePath() + ").");
-                project.getLogger().info("You only need this directory when you want to override some resources.");
+                context.getLogger().info("Adding 'deploy' directory wasn't successful, because it does not exist! (" + targetDeployDir.getAbsolutePath() + ").");
+                context.getLogger().info("You only need this directory when you want to override some resources.");
                 return;
             }
-            project.getLogger().info("Adding 'deploy' directory to classpath: " + ext.getDeployDir());
             URLClassLoader sysloader = (URLClassLoader) this.getClass().getClassLoader();
             Class<URLClassLoader> sysclass = URLClassLoader.class;
-            try{
-                Method method = sysclass.getDeclaredMethod("addURL", URL.class);
-                method.setAccessible(true);
-                method.invoke(sysloader, targetDeployDir.toURI().toURL());
-            } catch(NoSuchMethodException | SecurityException | MalformedURLException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex){
-                throw new GradleException("Error, could not add URL to system classloader", ex);
+            // the classloader is shared between all projects, which might run in parallel
+            synchronized(ADDED_DEPLOY_DIRS){
+                try{
+                    URL deployDirURL = targetDeployDir.toURI().toURL();
+                    if( Arrays.asList(sysloader.getURLs()).contains(deployDirURL) ){
+                        // happens on each build when using the gradle-daemon
+                        context.getLogger().info("'deploy' directory already is part of the classpath: " + ext.getDeployDir());
+                        return;
+                    }
+                    if( !ADDED_DEPLOY_DIRS.isEmpty() ){
+                        context.getLogger().warn("Adding another 'deploy' directory to the same classloader, resources of other projects might be used. Please consider setting 'workerIsolation' to 'classloader' inside 'jfx'-configuration.");
+                    }
+                    context.getLogger().info("Adding 'deploy' directory to classpath: " + ext.getDeployDir());
+                    Method method = sysclass.getDeclaredMethod("addURL", URL.class);
+                    method.setAccessible(true);
+                    method.invoke(sysloader, deployDirURL);
+                    ADDED_DEPLOY_DIRS.add(deployDirURL);
+                } catch(NoSuchMethodException | SecurityException | MalformedURLException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex){
+                    throw new GradleException("Error, could not add URL to system classloader", ex);
+                }
             }
         }
     }
@@ -110,12 +131,12 @@ public abstract class JfxAbstractWorker {
         return jdkPath;
     }
 
-    protected File getAbsoluteOrProjectRelativeFile(Project project, String potentialAbsoluteFilePath, boolean checkForAbsolutePaths) {
+    protected File getAbsoluteOrProjectRelativeFile(JfxWorkerContext context, String potentialAbsoluteFilePath, boolean checkForAbsolutePaths) {
         File file = new File(potentialAbsoluteFilePath);
         if( file.isAbsolute() && checkForAbsolutePaths ){
             return file;
         }
-        return new File(project.getProjectDir(), potentialAbsoluteFilePath);
+        return new File(context.getProjectDir(), potentialAbsoluteFilePath);
     }
 
     protected void copyRecursive(Path sourceFolder, Path targetFolder, Logger logger) throws IOException {
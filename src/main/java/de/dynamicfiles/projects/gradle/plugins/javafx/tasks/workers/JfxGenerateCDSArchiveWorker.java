@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.JavaDetectionTools;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PackagerLogger;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import org.gradle.api.GradleException;
+
+/**
+ * Runs the JavaFX-jar (same as jfxRun) for recording all loaded classes, then dumps these classes into
+ * some class-data-sharing archive for the JavaFX-jar and all jar-files of its manifest-classpath.
+ *
+ * @author Danny Althoff
+ */
+public class JfxGenerateCDSArchiveWorker extends JfxRunWorker {
+
+    public static final String CLASS_LIST_FILENAME = "classes.lst";
+
+    public void jfxgeneratecdsarchive(JfxWorkerContext context) {
+        // get our configuration
+        JavaFXGradlePluginExtension ext = context.getExtension();
+        addDeployDirToSystemClassloader(context, ext);
+
+        // set logger-level
+        PackagerLogger.attach(context.getLogger(), ext.isVerbose());
+
+        File jfxAppOutputDir = getAbsoluteOrProjectRelativeFile(context, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths());
+        File cdsOutputDir = getAbsoluteOrProjectRelativeFile(context, ext.getCdsOutputDir(), ext.isCheckForAbsolutePaths());
+        File classListFile = new File(cdsOutputDir, CLASS_LIST_FILENAME);
+        File archiveFile = new File(cdsOutputDir, ext.getCdsArchiveName());
+
+        try{
+            Files.createDirectories(cdsOutputDir.toPath());
+            Files.deleteIfExists(classListFile.toPath());
+            Files.deleteIfExists(archiveFile.toPath());
+
+            context.getLogger().lifecycle("Running JavaFX Application for recording loaded classes");
+            List<String> trainingParameters = new ArrayList<>(getUnlockOptions());
+            trainingParameters.add("-Xshare:off");
+            trainingParameters.add("-XX:DumpLoadedClassList=" + classListFile.getAbsolutePath());
+            List<String> trainingCommand = createRunCommand(ext, trainingParameters);
+            if( runCommand(trainingCommand, jfxAppOutputDir, ext.getCdsTrainingRunTimeout(), ext, context) != 0 ){
+                throw new GradleException("There was an exception while executing JavaFX Application. Please check build-log.");
+            }
+            if( !classListFile.exists() ){
+                throw new GradleException("JavaFX Application did not record any loaded classes, please make sure your JDK supports class-data-sharing for application classes.");
+            }
+
+            context.getLogger().lifecycle("Creating class-data-sharing archive");
+            List<String> dumpCommand = new ArrayList<>();
+            dumpCommand.add(getEnvironmentRelativeExecutablePath(ext.isUseEnvironmentRelativeExecutables()) + "java");
+            dumpCommand.addAll(getUnlockOptions());
+            dumpCommand.add("-Xshare:dump");
+            dumpCommand.add("-XX:SharedClassListFile=" + classListFile.getAbsolutePath());
+            dumpCommand.add("-XX:SharedArchiveFile=" + archiveFile.getAbsolutePath());
+            dumpCommand.add("-cp");
+            dumpCommand.add(getClasspath(new File(jfxAppOutputDir, ext.getJfxMainAppJarName()), ext.getJfxMainAppJarName()));
+            if( runCommand(dumpCommand, jfxAppOutputDir, 0, ext, context) != 0 || !archiveFile.exists() ){
+                throw new GradleException("Unable to create class-data-sharing archive. Please check build-log.");
+            }
+        } catch(IOException | InterruptedException ex){
+            throw new GradleException("There was an exception while creating class-data-sharing archive.", ex);
+        }
+    }
+
+    /**
+     * Using class-data-sharing for application classes requires some unlocking on older JDKs.
+     */
+    public static List<String> getUnlockOptions() {
+        List<String> unlockOptions = new ArrayList<>();
+        if( JavaDetectionTools.IS_JAVA_8 || JavaDetectionTools.IS_JAVA_9 ){
+            unlockOptions.add("-XX:+UnlockCommercialFeatures");
+            unlockOptions.add("-XX:+UseAppCDS");
+        } else if( JavaDetectionTools.isJavaVersion(10, true) ){
+            unlockOptions.add("-XX:+UseAppCDS");
+        }
+        return unlockOptions;
+    }
+
+    /*
+     * Has to be the same classpath as used when launching the application, so use the manifest-classpath of the JavaFX-jar.
+     */
+    private String getClasspath(File mainJarFile, String mainJarName) throws IOException {
+        List<String> classpath = new ArrayList<>();
+        classpath.add(mainJarName);
+        try(JarFile mainJar = new JarFile(mainJarFile)){
+            Manifest manifest = mainJar.getManifest();
+            if( manifest != null ){
+                String manifestClasspath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+                if( manifestClasspath != null && !manifestClasspath.trim().isEmpty() ){
+                    for( String classpathEntry : manifestClasspath.trim().split("\\s+") ){
+                        classpath.add(classpathEntry);
+                    }
+                }
+            }
+        }
+        return String.join(File.pathSeparator, classpath);
+    }
+}
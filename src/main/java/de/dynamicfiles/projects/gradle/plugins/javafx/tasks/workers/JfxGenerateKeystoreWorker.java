@@ -15,15 +15,14 @@
  */
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers;
 
-import com.oracle.tools.packager.Log;
 import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PackagerLogger;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import org.gradle.api.GradleException;
-import org.gradle.api.Project;
 
 /**
  *
@@ -37,15 +36,15 @@ public class JfxGenerateKeystoreWorker extends JfxAbstractWorker {
         String getValue();
     }
 
-    public void jfxgeneratekeystore(Project project) {
+    public void jfxgeneratekeystore(JfxWorkerContext context) {
         // get our configuration
-        JavaFXGradlePluginExtension ext = project.getExtensions().getByType(JavaFXGradlePluginExtension.class);
-        addDeployDirToSystemClassloader(project, ext);
+        JavaFXGradlePluginExtension ext = context.getExtension();
+        addDeployDirToSystemClassloader(context, ext);
 
         // set logger-level
-        Log.setLogger(new Log.Logger(ext.isVerbose()));
+        PackagerLogger.attach(context.getLogger(), ext.isVerbose());
 
-        File keyStore = getAbsoluteOrProjectRelativeFile(project, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
+        File keyStore = getAbsoluteOrProjectRelativeFile(context, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
 
         if( keyStore.exists() ){
             if( ext.isOverwriteKeyStore() ){
@@ -75,12 +74,12 @@ public class JfxGenerateKeystoreWorker extends JfxAbstractWorker {
         checkAndAddRequiredField(distinguishedNameParts, "certCountry", ext.getCertCountry(), "c");
 
         generateKeyStore(
-                project, keyStore, ext.getKeyStoreAlias(), ext.getKeyStorePassword(), ext.getKeyPassword(), String.join(", ", distinguishedNameParts), ext.isVerbose(), ext.isUseEnvironmentRelativeExecutables()
+                context, keyStore, ext.getKeyStoreAlias(), ext.getKeyStorePassword(), ext.getKeyPassword(), String.join(", ", distinguishedNameParts), ext.isVerbose(), ext.isUseEnvironmentRelativeExecutables()
         );
     }
 
-    protected void generateKeyStore(Project project, File keyStore, String keyStoreAlias, String keyStorePassword, String keyPassword, String distinguishedName, boolean verbose, boolean useEnvironmentRelativeExecutables) {
-        project.getLogger().info("Generating keystore in: " + keyStore);
+    protected void generateKeyStore(JfxWorkerContext context, File keyStore, String keyStoreAlias, String keyStorePassword, String keyPassword, String distinguishedName, boolean verbose, boolean useEnvironmentRelativeExecutables) {
+        context.getLogger().info("Generating keystore in: " + keyStore);
 
         try{
             // generated folder if it does not exist
@@ -118,14 +117,14 @@ public class JfxGenerateKeystoreWorker extends JfxAbstractWorker {
             }
 
             if( verbose ){
-                project.getLogger().lifecycle("Running command: " + String.join(" ", command));
+                context.getLogger().lifecycle("Running command: " + String.join(" ", command));
             }
 
             pb.command(command);
             Process p = pb.start();
 
             if( isGradleDaemonMode() ){
-                redirectIO(p, project.getLogger());
+                redirectIO(p, context.getLogger());
             }
 
             p.waitFor();
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxJarTask;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxNativeTask;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PackagerLogger;
+import javax.inject.Inject;
+import org.gradle.api.GradleException;
+
+/**
+ * Entry-point for running some worker via the worker-API of gradle, having ant-javafx.jar only on the classpath
+ * of the isolated classloader (or process) instead of the buildscript-classloader.
+ *
+ * @author Danny Althoff
+ */
+public class JfxIsolatedWorker implements Runnable {
+
+    private final String taskName;
+    private final JfxWorkerContext context;
+
+    @Inject
+    public JfxIsolatedWorker(String taskName, JfxWorkerContext context) {
+        this.taskName = taskName;
+        this.context = context;
+    }
+
+    @Override
+    public void run() {
+        context.setRunningIsolated(true);
+        try{
+            switch(taskName) {
+                case JfxJarTask.JFX_TASK_NAME:
+                    new JfxJarWorker().jfxjar(context);
+                    break;
+                case JfxNativeTask.JFX_TASK_NAME:
+                    new JfxNativeWorker().jfxnative(context);
+                    break;
+                default:
+                    throw new GradleException("Running task " + taskName + " isolated is not supported.");
+            }
+        } finally{
+            PackagerLogger.detach();
+        }
+    }
+}
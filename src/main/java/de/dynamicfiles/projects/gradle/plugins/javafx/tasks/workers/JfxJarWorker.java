@@ -15,29 +15,48 @@
  */
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers;
 
-import com.oracle.tools.packager.Log;
 import com.sun.javafx.tools.packager.CreateJarParams;
 import com.sun.javafx.tools.packager.PackagerException;
 import com.sun.javafx.tools.packager.PackagerLib;
 import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.Css2BinCache;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.DependencyStager;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.JarIndex;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.LibFolderState;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PackagerLogger;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.RawJarFile;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.RawJarWriter;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.SortedManifestWriter;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.StartupEntryOrder;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
 import org.gradle.api.GradleException;
-import org.gradle.api.Project;
-import org.gradle.api.artifacts.Configuration;
-import org.gradle.api.file.CopySpec;
-import org.gradle.api.specs.Specs;
 
 /**
  *
@@ -45,46 +64,48 @@ import org.gradle.api.specs.Specs;
  */
 public class JfxJarWorker extends JfxAbstractWorker {
 
-    public void jfxjar(Project project) {
+    private static final int MAX_PARALLEL_DEPENDENCY_COPIES = 8;
+
+    public void jfxjar(JfxWorkerContext context) {
         // get our configuration
-        JavaFXGradlePluginExtension ext = project.getExtensions().getByType(JavaFXGradlePluginExtension.class);
-        addDeployDirToSystemClassloader(project, ext);
+        JavaFXGradlePluginExtension ext = context.getExtension();
+        addDeployDirToSystemClassloader(context, ext);
 
         // set logger-level
-        Log.setLogger(new Log.Logger(ext.isVerbose()));
+        PackagerLogger.attach(context.getLogger(), ext.isVerbose());
 
-        // within maven we would get the jar-content inside some folder BEFORE it is out into JAR-file
-        // within gradle we have to extract that folder to get all contents
-        org.gradle.api.tasks.bundling.Jar jarTask = (org.gradle.api.tasks.bundling.Jar) project.getTasks().findByName("jar");
+        File sourceJarFile = context.getJarArchive();
+        if( ext.getAlternativePathToJarFile() != null ){
+            File alternativeJarFile = getAbsoluteOrProjectRelativeFile(context, ext.getAlternativePathToJarFile(), ext.isCheckForAbsolutePaths());
+            if( alternativeJarFile.exists() ){
+                sourceJarFile = alternativeJarFile;
+            } else {
+                context.getLogger().warn("Could not find specified alternative JAR-file");
+            }
+        }
 
-        // within maven we would get the jar-content inside some folder BEFORE it is out into JAR-file
-        // within gradle we have to extract that jar-file to get all contents inside a folder
+        // within maven we would get the jar-content inside some folder BEFORE it is out into JAR-file,
+        // instead of extracting the whole jar-file, the packager only creates the manifest (and launcher-stuff)
+        // inside some temporary folder, all entries of the generated jar-file are copied afterwards
         Path someTempDir;
         try{
             someTempDir = Files.createTempDirectory("javafx-gradle-plugin");
         } catch(IOException ex){
             throw new GradleException("Couldn't create temporary folder", ex);
         }
-        project.getLogger().info("Extraction of generated JAR-file ...");
-        project.copy((CopySpec copySpec) -> {
-            copySpec.into(someTempDir.toFile());
-            if( ext.getAlternativePathToJarFile() == null ){
-                copySpec.from(project.zipTree(jarTask.getArchivePath()));
-            } else {
-                File alternativeJarFile = getAbsoluteOrProjectRelativeFile(project, ext.getAlternativePathToJarFile(), ext.isCheckForAbsolutePaths());
-                if( alternativeJarFile.exists() ){
-                    copySpec.from(project.zipTree(alternativeJarFile));
-                } else {
-                    project.getLogger().warn("Could not find specified alternative JAR-file");
-                    copySpec.from(project.zipTree(jarTask.getArchivePath()));
-                }
-            }
-        });
 
-        project.getLogger().info("Creating parameter-map for packager...");
+        context.getLogger().info("Creating parameter-map for packager...");
+
+        File jfxAppOutputDir = getAbsoluteOrProjectRelativeFile(context, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths());
+        File packagerOutputDir = someTempDir.resolve("packager").toFile();
+        File packagerResourcesDir = someTempDir.resolve("resources").toFile();
 
         CreateJarParams createJarParams = new CreateJarParams();
-        createJarParams.setOutdir(getAbsoluteOrProjectRelativeFile(project, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()));
+        if( ext.isUpdateExistingJar() ){
+            createJarParams.setOutdir(jfxAppOutputDir);
+        } else {
+            createJarParams.setOutdir(packagerOutputDir);
+        }
 
         // check if we got some filename ending with ".jar"
         if( !ext.getJfxMainAppJarName().toLowerCase().endsWith(".jar") ){
@@ -92,76 +113,129 @@ public class JfxJarWorker extends JfxAbstractWorker {
         }
         createJarParams.setOutfile(ext.getJfxMainAppJarName());
         createJarParams.setApplicationClass(ext.getMainClass());
-        createJarParams.setCss2bin(ext.isCss2bin());
+        // when not updating the existing jar-file, stylesheets are converted separately
+        createJarParams.setCss2bin(ext.isCss2bin() && ext.isUpdateExistingJar());
         createJarParams.setPreloader(ext.getPreLoader());
 
-        Map<String, String> manifestAttributes = ext.getManifestAttributes();
-        if( manifestAttributes == null ){
-            manifestAttributes = new HashMap<>();
-        }
+        // gets modified below, which must not change the "jfx"-configuration
+        Map<String, String> manifestAttributes = new HashMap<>();
+        Optional.ofNullable(ext.getManifestAttributes()).ifPresent(manifestAttributes::putAll);
         createJarParams.setManifestAttrs(manifestAttributes);
 
-        final File libDir = new File(getAbsoluteOrProjectRelativeFile(project, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()), ext.getLibFolderName());
+        final File libDir = new File(jfxAppOutputDir, ext.getLibFolderName());
         if( !libDir.exists() && !libDir.mkdirs() ){
             throw new GradleException("Unable to create app lib dir: " + libDir);
         }
 
+        if( ext.getJarCompressionLevel() < RawJarWriter.KEEP_COMPRESSION || ext.getJarCompressionLevel() > Deflater.BEST_COMPRESSION ){
+            throw new GradleException("Invalid jarCompressionLevel " + ext.getJarCompressionLevel() + ", please use -1 (keep compression) or 0 (no compression) up to 9 (best compression).");
+        }
+
+        StartupEntryOrder startupEntryOrder = null;
+        if( ext.getStartupClassList() != null ){
+            File startupClassList = getAbsoluteOrProjectRelativeFile(context, ext.getStartupClassList(), ext.isCheckForAbsolutePaths());
+            if( startupClassList.exists() ){
+                try{
+                    startupEntryOrder = new StartupEntryOrder(startupClassList);
+                } catch(IOException ex){
+                    throw new GradleException("Couldn't read startup class-list " + startupClassList, ex);
+                }
+            } else {
+                context.getLogger().warn("Could not find startup class-list " + startupClassList + ", entries will not be reordered.");
+            }
+        }
+        String startupJarName = null;
+        if( ext.isSeparateStartupJar() && startupEntryOrder != null && !ext.isUpdateExistingJar() ){
+            startupJarName = getStartupJarName(ext);
+        }
+
         if( ext.isUpdateExistingJar() ){
-            createJarParams.addResource(null, jarTask.getArchivePath());
+            if( startupEntryOrder != null ){
+                context.getLogger().warn("Reordering entries is not supported when updating existing JAR-file.");
+            }
+            if( ext.isGenerateJarIndex() ){
+                context.getLogger().warn("Generating JAR-index is not supported when updating existing JAR-file.");
+            }
+            if( ext.isReproducibleJar() ){
+                context.getLogger().warn("Creating reproducible JAR-files is not supported when updating existing JAR-file.");
+            }
+            if( ext.getJarCompressionLevel() != RawJarWriter.KEEP_COMPRESSION ){
+                context.getLogger().warn("Setting the compression level is not supported when updating existing JAR-file.");
+            }
+            createJarParams.addResource(null, context.getJarArchive());
         } else {
-            // produced and extracted jar-file
-            createJarParams.addResource(someTempDir.toFile(), "");
+            if( !packagerResourcesDir.mkdirs() ){
+                throw new GradleException("Unable to create temporary folder: " + packagerResourcesDir);
+            }
+            createJarParams.addResource(packagerResourcesDir, "");
         }
 
-        Set<String> foundLibs = new HashSet<>();
+        DependencyStager dependencyStager = new DependencyStager(ext.getDependencyStagingStrategy(), context.getLogger());
+        LibFolderState libFolderState = null;
+        if( ext.isSyncLibFolder() ){
+            // state is not kept inside the lib-folder, as everything inside jfxAppOutputDir would end up inside the native bundles
+            File stateFile = new File(context.getTemporaryDir(), "lib-folder.properties");
+            libFolderState = new LibFolderState(stateFile, context.getLogger());
+        }
 
         // copy dependencies
         // got inspiration from: http://opensourceforgeeks.blogspot.de/2015/05/knowing-gradle-dependency-jars-download.html
-        Configuration compileConfiguration = project.getConfigurations().getByName("compile");
+        List<String> foundLibs = new ArrayList<>();
         if( !ext.isSkipCopyingDependencies() ){
-            copyModuleDependencies(compileConfiguration, "compile", project, libDir, foundLibs);
-            copyFileDependencies(compileConfiguration, "compile", project, ext.isAddPackagerJar(), libDir, foundLibs);
-        } else {
-            project.getLogger().info("Skipped copying compile dependencies");
-        }
+            Map<String, File> dependencies = context.getDependencies();
+            Set<String> stagedLibs = stageDependencies(dependencies, libDir, dependencyStager, libFolderState, context);
+            // keep order of the dependencies for the manifest-classpath
+            dependencies.keySet().stream().filter(stagedLibs::contains).forEach(foundLibs::add);
 
-        Configuration runtimeConfiguration = project.getConfigurations().getByName("runtime");
-        if( !ext.isSkipCopyingDependencies() ){
-            copyModuleDependencies(runtimeConfiguration, "runtime", project, libDir, foundLibs);
-            copyFileDependencies(runtimeConfiguration, "runtime", project, ext.isAddPackagerJar(), libDir, foundLibs);
+            if( libFolderState != null ){
+                libFolderState.removeStaleFiles(libDir);
+                libFolderState.save();
+            }
         } else {
-            project.getLogger().info("Skipped copying runtime dependencies");
+            context.getLogger().info("Skipped copying dependencies");
         }
 
+        String manifestClasspath = null;
         if( ext.isUseLibFolderContentForManifestClasspath() ){
-            StringBuilder scannedClasspath = new StringBuilder();
+            List<String> scannedClasspath = new ArrayList<>();
             try{
                 Files.walkFileTree(libDir.toPath(), new SimpleFileVisitor<Path>() {
                     @Override
                     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                        scannedClasspath.append(ext.getLibFolderName().replace("\\", "/")).append("/").append(libDir.toPath().relativize(file).toString().replace("\\", "/")).append(" ");
+                        scannedClasspath.add(ext.getLibFolderName().replace("\\", "/") + "/" + libDir.toPath().relativize(file).toString().replace("\\", "/"));
                         return super.visitFile(file, attrs);
                     }
                 });
             } catch(IOException ioex){
-                project.getLogger().warn("Got problem while scanning lib-folder", ioex);
+                context.getLogger().warn("Got problem while scanning lib-folder", ioex);
             }
-            createJarParams.setClasspath(scannedClasspath.toString());
+            if( ext.isReproducibleJar() ){
+                // order of the filesystem might differ
+                Collections.sort(scannedClasspath);
+            }
+            StringBuilder scannedClasspathString = new StringBuilder();
+            scannedClasspath.forEach(classpathEntry -> scannedClasspathString.append(classpathEntry).append(" "));
+            manifestClasspath = scannedClasspathString.toString();
         } else {
             if( !foundLibs.isEmpty() ){
-                createJarParams.setClasspath(ext.getLibFolderName() + "/" + String.join(" " + ext.getLibFolderName() + "/", foundLibs));
+                manifestClasspath = ext.getLibFolderName() + "/" + String.join(" " + ext.getLibFolderName() + "/", foundLibs);
             }
         }
-        Optional.ofNullable(ext.getFixedManifestClasspath()).ifPresent(manifestClasspath -> {
-            if( manifestClasspath.trim().isEmpty() ){
-                return;
-            }
-            createJarParams.setClasspath(manifestClasspath);
+        String fixedManifestClasspath = ext.getFixedManifestClasspath();
+        if( fixedManifestClasspath != null && !fixedManifestClasspath.trim().isEmpty() ){
+            manifestClasspath = fixedManifestClasspath;
 
             if( ext.isUseLibFolderContentForManifestClasspath() ){
-                project.getLogger().warn("You specified to use the content of the lib-folder AND specified a fixed classpath. The fixed classpath will get taken.");
+                context.getLogger().warn("You specified to use the content of the lib-folder AND specified a fixed classpath. The fixed classpath will get taken.");
             }
-        });
+        }
+        if( startupJarName != null ){
+            // startup entries have to be found before all other entries
+            manifestClasspath = startupJarName + (manifestClasspath == null ? "" : " " + manifestClasspath);
+        }
+        if( manifestClasspath != null ){
+            createJarParams.setClasspath(manifestClasspath);
+        }
 
         // https://docs.oracle.com/javase/8/docs/technotes/guides/deploy/manifest.html#JSDPG896
         if( ext.isAllPermissions() ){
@@ -170,33 +244,86 @@ public class JfxJarWorker extends JfxAbstractWorker {
 
         PackagerLib packagerLib = new PackagerLib();
         try{
-            project.getLogger().info("Running packager...");
+            context.getLogger().info("Running packager...");
             packagerLib.packageAsJar(createJarParams);
         } catch(PackagerException ex){
             throw new GradleException("Unable to build JFX JAR for application", ex);
         }
 
+        if( !ext.isUpdateExistingJar() ){
+            context.getLogger().info("Copying entries of generated JAR-file...");
+            File packagerJarFile = new File(packagerOutputDir, ext.getJfxMainAppJarName());
+            File targetJarFile = new File(jfxAppOutputDir, ext.getJfxMainAppJarName());
+            File startupJarFile = new File(jfxAppOutputDir, getStartupJarName(ext));
+            Comparator<String> entryOrder = ext.isReproducibleJar() ? Comparator.naturalOrder() : null;
+            Comparator<String> sourceEntryOrder = entryOrder;
+            if( startupEntryOrder != null ){
+                sourceEntryOrder = entryOrder == null ? startupEntryOrder.getComparator() : startupEntryOrder.getComparator().thenComparing(entryOrder);
+            }
+            final StartupEntryOrder startupEntries = startupEntryOrder;
+            try(RawJarWriter jarWriter = new RawJarWriter(targetJarFile); RawJarWriter startupJarWriter = startupJarName == null ? null : new RawJarWriter(startupJarFile)){
+                jarWriter.setReproducible(ext.isReproducibleJar());
+                jarWriter.setCompressionLevel(ext.getJarCompressionLevel());
+                Function<String, RawJarWriter> targetWriter = entryName -> jarWriter;
+                if( startupJarWriter != null ){
+                    startupJarWriter.setReproducible(ext.isReproducibleJar());
+                    startupJarWriter.setCompressionLevel(ext.getJarCompressionLevel());
+                    targetWriter = entryName -> startupEntries.isStartupEntry(entryName) ? startupJarWriter : jarWriter;
+                }
+                if( ext.isReproducibleJar() ){
+                    writeSortedManifest(packagerJarFile, jarWriter);
+                }
+                // manifest from the packager comes first
+                copyJarEntries(packagerJarFile, entryName -> jarWriter, entryName -> false, entryOrder, context);
+                if( ext.isCss2bin() ){
+                    File css2binCacheDir = new File(context.getTemporaryDir(), "css2bin");
+                    Map<String, File> binaryStylesheets = new Css2BinCache(css2binCacheDir, context.getLogger()).convert(sourceJarFile);
+                    for( Map.Entry<String, File> binaryStylesheet : binaryStylesheets.entrySet() ){
+                        try(InputStream binaryStylesheetContent = Files.newInputStream(binaryStylesheet.getValue().toPath())){
+                            targetWriter.apply(binaryStylesheet.getKey()).writeEntry(binaryStylesheet.getKey(), binaryStylesheetContent, binaryStylesheet.getValue().lastModified());
+                        }
+                    }
+                }
+                copyJarEntries(sourceJarFile, targetWriter, entryName -> {
+                    return "META-INF/MANIFEST.MF".equalsIgnoreCase(entryName) || JarIndex.INDEX_NAME.equals(entryName) || (ext.isCss2bin() && entryName.endsWith(".css"));
+                }, sourceEntryOrder, context);
+                if( ext.isGenerateJarIndex() ){
+                    Map<String, Set<String>> unfinishedJars = new HashMap<>();
+                    if( startupJarWriter != null ){
+                        unfinishedJars.put(startupJarName, startupJarWriter.getEntryNames());
+                    }
+                    writeJarIndex(jarWriter, manifestClasspath, unfinishedJars, jfxAppOutputDir, ext, context);
+                }
+            } catch(IOException ex){
+                throw new GradleException("Unable to build JFX JAR for application", ex);
+            }
+            if( startupJarName == null && startupJarFile.exists() ){
+                // remains of some previous build
+                startupJarFile.delete();
+            }
+        }
+
         if( ext.isCopyAdditionalAppResourcesToJar() ){
             Optional.ofNullable(ext.getAdditionalAppResources())
                     .filter(appRessourcesString -> appRessourcesString != null)
-                    .map(appRessourcesString -> getAbsoluteOrProjectRelativeFile(project, appRessourcesString, ext.isCheckForAbsolutePaths()))
+                    .map(appRessourcesString -> getAbsoluteOrProjectRelativeFile(context, appRessourcesString, ext.isCheckForAbsolutePaths()))
                     .filter(File::exists)
                     .ifPresent(appResources -> {
-                        project.getLogger().info("Copying additional app ressources...");
+                        context.getLogger().info("Copying additional app ressources...");
 
                         try{
-                            Path targetFolder = getAbsoluteOrProjectRelativeFile(project, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()).toPath();
+                            Path targetFolder = getAbsoluteOrProjectRelativeFile(context, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()).toPath();
                             Path sourceFolder = appResources.toPath();
-                            copyRecursive(sourceFolder, targetFolder, project.getLogger());
+                            copyRecursive(sourceFolder, targetFolder, context.getLogger());
                         } catch(IOException e){
-                            project.getLogger().warn("Couldn't copy additional application resource-file(s).", e);
+                            context.getLogger().warn("Couldn't copy additional application resource-file(s).", e);
                         }
                     });
         }
 
         // cleanup
         if( libDir.list().length == 0 ){
-            project.getLogger().info("Deleting unused lib-folder...");
+            context.getLogger().info("Deleting unused lib-folder...");
             // remove lib-folder, when nothing ended up there
             libDir.delete();
         }
@@ -223,46 +350,138 @@ public class JfxJarWorker extends JfxAbstractWorker {
         }
     }
 
-    private void copyModuleDependencies(Configuration configuration, String toPrint, Project project, final File libDir, Set<String> foundLibs) {
-        project.getLogger().info("Copying defined " + toPrint + "-dependencies...");
-        // this will work for all non-file dependencies
-        configuration.getResolvedConfiguration().getFirstLevelModuleDependencies().forEach(resolvedDep -> {
-            // TODO add dependency-filter
-            resolvedDep.getAllModuleArtifacts().forEach(artifact -> {
-                try{
-                    Path artifactPath = artifact.getFile().toPath();
-                    String artifactFileName = artifactPath.getFileName().toString();
-                    Files.copy(artifactPath, libDir.toPath().resolve(artifactFileName), StandardCopyOption.REPLACE_EXISTING);
-                    // will only append, when everything went right
-                    foundLibs.add(artifactFileName);
-                } catch(IOException ex){
-                    project.getLogger().warn("Couldn't copy dependency " + artifact.getId().getComponentIdentifier().toString(), ex);
-                }
-            });
-        });
+    private String getStartupJarName(JavaFXGradlePluginExtension ext) {
+        String jfxMainAppJarName = ext.getJfxMainAppJarName();
+        return jfxMainAppJarName.substring(0, jfxMainAppJarName.length() - ".jar".length()) + "-startup.jar";
     }
 
-    private void copyFileDependencies(Configuration configuration, String toPrint, Project project, boolean isPackagerJarToBeAdded, final File libDir, Set<String> foundLibs) {
-        project.getLogger().info("Copying defined " + toPrint + "-dependency-files...");
-        // inside "getFiles" all non-maven dependencies (like packager.jar) will be available
-        configuration.getResolvedConfiguration().getFiles(Specs.SATISFIES_ALL).forEach(someFile -> {
-            try{
-                Path artifactPath = someFile.toPath();
-                String artifactFileName = artifactPath.getFileName().toString();
-                if( "packager.jar".equals(artifactFileName) && !isPackagerJarToBeAdded ){
-                    project.getLogger().info("Skipped adding packager.jar.");
+    /**
+     * @param unfinishedJars entries of jar-files from the classpath which are still getting written
+     */
+    private void writeJarIndex(RawJarWriter jarWriter, String manifestClasspath, Map<String, Set<String>> unfinishedJars, File jfxAppOutputDir, JavaFXGradlePluginExtension ext, JfxWorkerContext context) throws IOException {
+        context.getLogger().info("Generating JAR-index...");
+        JarIndex jarIndex = new JarIndex();
+        jarIndex.addJar(ext.getJfxMainAppJarName(), jarWriter.getEntryNames());
+        if( manifestClasspath != null ){
+            // entries of the manifest-classpath are relative to the JavaFX jar-file
+            for( String classpathEntry : manifestClasspath.trim().split("\\s+") ){
+                if( unfinishedJars.containsKey(classpathEntry) ){
+                    jarIndex.addJar(classpathEntry, unfinishedJars.get(classpathEntry));
+                    continue;
+                }
+                File classpathFile = new File(jfxAppOutputDir, classpathEntry);
+                if( classpathEntry.isEmpty() || !classpathEntry.endsWith(".jar") || !classpathFile.isFile() ){
+                    // the index has to be complete, otherwise classes of missing entries might not be found anymore
+                    context.getLogger().warn("Skipped generating JAR-index, because classpath-entry is no existing JAR-file: " + classpathEntry);
                     return;
                 }
+                jarIndex.addJar(classpathEntry, classpathFile);
+            }
+        }
+        // same timestamp as the manifest, making the jar-file reproducible
+        jarWriter.writeEntry(JarIndex.INDEX_NAME, jarIndex.toBytes(), RawJarWriter.CONSTANT_TIMESTAMP);
+    }
+
+    private void writeSortedManifest(File packagerJarFile, RawJarWriter jarWriter) throws IOException {
+        try(RawJarFile packagerJar = new RawJarFile(packagerJarFile)){
+            RawJarFile.Entry manifestEntry = packagerJar.getEntry(JarFile.MANIFEST_NAME);
+            if( manifestEntry == null ){
+                return;
+            }
+            Manifest manifest;
+            try(InputStream manifestContent = packagerJar.getInputStream(manifestEntry)){
+                manifest = new Manifest(manifestContent);
+            }
+            // having the manifest as first entries is required for JarInputStream
+            jarWriter.writeEntry("META-INF/", new byte[0], RawJarWriter.CONSTANT_TIMESTAMP);
+            jarWriter.writeEntry(JarFile.MANIFEST_NAME, SortedManifestWriter.toBytes(manifest), RawJarWriter.CONSTANT_TIMESTAMP);
+        }
+    }
 
-                // add this lib only, when not already present (could happen on file-dependencies ... which behaves different from maven-model)
-                if( !foundLibs.contains(artifactFileName) ){
-                    Files.copy(artifactPath, libDir.toPath().resolve(artifactFileName), StandardCopyOption.REPLACE_EXISTING);
-                    foundLibs.add(artifactFileName);
+    /**
+     * @param targetWriter selects the jar-file every entry gets written into
+     * @param entryOrder when null, the order of the source jar-file is kept
+     */
+    private void copyJarEntries(File sourceJarFile, Function<String, RawJarWriter> targetWriter, Predicate<String> skipEntry, Comparator<String> entryOrder, JfxWorkerContext context) throws IOException {
+        RawJarFile rawJarFile;
+        try{
+            rawJarFile = new RawJarFile(sourceJarFile);
+        } catch(ZipException ex){
+            // ZIP64 or some special entries, these require to be re-compressed
+            context.getLogger().info("Could not copy raw entries of " + sourceJarFile + ", re-compressing them", ex);
+            try(JarFile jarFile = new JarFile(sourceJarFile)){
+                List<JarEntry> entries = Collections.list(jarFile.entries());
+                if( entryOrder != null ){
+                    entries.sort(Comparator.comparing(JarEntry::getName, entryOrder));
                 }
-            } catch(IOException ex){
-                project.getLogger().warn("Couldn't copy dependency " + someFile.getName(), ex);
+                for( JarEntry entry : entries ){
+                    if( skipEntry.test(entry.getName()) ){
+                        continue;
+                    }
+                    try(InputStream entryContent = jarFile.getInputStream(entry)){
+                        targetWriter.apply(entry.getName()).writeEntry(entry.getName(), entryContent, entry.getTime());
+                    }
+                }
+            }
+            return;
+        }
+        try{
+            List<RawJarFile.Entry> entries = new ArrayList<>(rawJarFile.getEntries());
+            if( entryOrder != null ){
+                entries.sort(Comparator.comparing(RawJarFile.Entry::getName, entryOrder));
+            }
+            for( RawJarFile.Entry entry : entries ){
+                if( skipEntry.test(entry.getName()) ){
+                    continue;
+                }
+                targetWriter.apply(entry.getName()).copyEntry(rawJarFile, entry);
+            }
+        } finally{
+            rawJarFile.close();
+        }
+    }
+
+    private void stageDependency(Path artifactPath, Path targetPath, DependencyStager dependencyStager, LibFolderState libFolderState) throws IOException {
+        if( libFolderState == null ){
+            dependencyStager.stage(artifactPath, targetPath);
+            return;
+        }
+        if( !libFolderState.isUpToDate(artifactPath, targetPath) ){
+            dependencyStager.stage(artifactPath, targetPath);
+        }
+        libFolderState.staged(artifactPath, targetPath);
+    }
+
+    private Set<String> stageDependencies(Map<String, File> dependencies, File libDir, DependencyStager dependencyStager, LibFolderState libFolderState, JfxWorkerContext context) {
+        context.getLogger().info("Copying " + dependencies.size() + " dependencies...");
+        Set<String> stagedLibs = ConcurrentHashMap.newKeySet();
+        int threadCount = Math.max(1, Math.min(MAX_PARALLEL_DEPENDENCY_COPIES, Math.min(Runtime.getRuntime().availableProcessors(), dependencies.size())));
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try{
+            List<Future<?>> copyJobs = new ArrayList<>();
+            dependencies.forEach((artifactFileName, artifactPath) -> {
+                copyJobs.add(executorService.submit(() -> {
+                    try{
+                        stageDependency(artifactPath.toPath(), libDir.toPath().resolve(artifactFileName), dependencyStager, libFolderState);
+                        // will only append, when everything went right
+                        stagedLibs.add(artifactFileName);
+                    } catch(IOException ex){
+                        context.getLogger().warn("Couldn't copy dependency " + artifactPath, ex);
+                    }
+                }));
+            });
+            for( Future<?> copyJob : copyJobs ){
+                copyJob.get();
             }
-        });
+        } catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while copying dependencies", ex);
+        } catch(ExecutionException ex){
+            throw new GradleException("Couldn't copy dependencies", ex.getCause());
+        } finally{
+            executorService.shutdownNow();
+        }
+        return stagedLibs;
     }
 
 }
@@ -23,7 +23,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import org.gradle.api.Project;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 
@@ -33,8 +32,8 @@ import org.gradle.api.logging.Logger;
  */
 public class JfxListBundlersWorker extends JfxAbstractWorker {
 
-    public void jfxlistbundlers(Project project) {
-        Logger logger = project.getLogger();
+    public void jfxlistbundlers(JfxWorkerContext context) {
+        Logger logger = context.getLogger();
 
         Bundlers bundlers = Bundlers.createBundlersInstance();
         logger.info("Available bundlers:");
@@ -28,27 +28,39 @@ import com.sun.javafx.tools.packager.SignJarParams;
 import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
 import de.dynamicfiles.projects.gradle.plugins.javafx.dto.FileAssociation;
 import de.dynamicfiles.projects.gradle.plugins.javafx.dto.NativeLauncher;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.JfxGenerateCDSArchiveTask;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.AppImageReuse;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.BundlerScheduler;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.IncrementalAppImage;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.JavaDetectionTools;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.LruCache;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.NativeBundleCache;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PackagerLogger;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.ParameterMapEntries;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PrefixedLogger;
 import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.Workarounds;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipFile;
 import org.gradle.api.GradleException;
-import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 
 /**
@@ -62,17 +74,34 @@ public class JfxNativeWorker extends JfxAbstractWorker {
     private static final String CFG_WORKAROUND_MARKER = "cfgWorkaroundMarker";
     private static final String CFG_WORKAROUND_DONE_MARKER = CFG_WORKAROUND_MARKER + ".done";
 
+    // bundlers of the JDK, which only depend on the outcome of another bundler when having workaround for issue 205 active
+    private static final Set<String> CONCURRENT_BUNDLER_IDS = new HashSet<>(Arrays.asList(
+            "windows.app", "exe", "msi", "windows.service",
+            "mac.app", "mac.appStore", "mac.daemon", "dmg", "pkg",
+            "linux.app", "deb", "rpm",
+            "jnlp"
+    ));
+
+    // results of searching the main-class, shared between all builds of this gradle-daemon (limited, as the daemon might run for a long time)
+    private static final LruCache<String, JarEntryLookup> JAR_ENTRY_LOOKUPS = new LruCache<>(1024);
+
     private Workarounds workarounds = null;
+    private AppImageReuse appImageReuse = null;
+    private IncrementalAppImage incrementalAppImage = null;
+    private NativeBundleCache nativeBundleCache = null;
 
-    public void jfxnative(Project project) {
+    public void jfxnative(JfxWorkerContext context) {
         // get our configuration
-        JavaFXGradlePluginExtension ext = project.getExtensions().getByType(JavaFXGradlePluginExtension.class);
-        addDeployDirToSystemClassloader(project, ext);
+        JavaFXGradlePluginExtension ext = context.getExtension();
+        addDeployDirToSystemClassloader(context, ext);
+
+        // set logger-level
+        PackagerLogger.attach(context.getLogger(), ext.isVerbose());
 
         String requestedBundler = ext.getBundler();
-        final Logger logger = project.getLogger();
+        final Logger logger = context.getLogger();
 
-        workarounds = new Workarounds(getAbsoluteOrProjectRelativeFile(project, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()), logger);
+        workarounds = new Workarounds(getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()), logger);
 
         Map<String, ? super Object> params = new HashMap<>();
 
@@ -84,10 +113,11 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         });
 
         // on gradle we don't have nice appnames .... i think?!
-        String appName = ext.getAppName();
-        if( appName == null ){
-            org.gradle.api.tasks.bundling.Jar jarTask = (org.gradle.api.tasks.bundling.Jar) project.getTasks().findByName("jar");
-            String archiveName = jarTask.getArchiveName();
+        final String appName;
+        if( ext.getAppName() != null ){
+            appName = ext.getAppName();
+        } else {
+            String archiveName = context.getJarArchive().getName();
             appName = archiveName.substring(0, archiveName.lastIndexOf("."));
         }
         params.put(StandardBundlerParam.APP_NAME.getID(), appName);
@@ -118,36 +148,45 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         Optional.ofNullable(ext.getLauncherArguments()).ifPresent(arguments -> {
             params.put(StandardBundlerParam.ARGUMENTS.getID(), new ArrayList<>(arguments));
         });
+
+        // adding all resource-files
+        File jfxAppOutputDir = getAbsoluteOrProjectRelativeFile(context, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths());
+        Set<File> resourceFiles = collectResourceFiles(jfxAppOutputDir, logger);
+        RelativeFileSet appResources = new RelativeFileSet(jfxAppOutputDir, resourceFiles);
+        params.put(StandardBundlerParam.APP_RESOURCES.getID(), appResources);
+
+        Set<File> additionalResourceFiles = new HashSet<>();
         Optional.ofNullable(ext.getAdditionalAppResources())
                 .filter(appRessourcesString -> appRessourcesString != null)
-                .map(appRessourcesString -> getAbsoluteOrProjectRelativeFile(project, appRessourcesString, ext.isCheckForAbsolutePaths()))
+                .map(appRessourcesString -> getAbsoluteOrProjectRelativeFile(context, appRessourcesString, ext.isCheckForAbsolutePaths()))
                 .filter(File::exists)
-                .ifPresent(appResources -> {
-                    logger.info("Copying additional app ressources...");
-                    try{
-                        Path targetFolder = getAbsoluteOrProjectRelativeFile(project, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()).toPath();
-                        Path sourceFolder = appResources.toPath();
-                        copyRecursive(sourceFolder, targetFolder, project.getLogger());
-                    } catch(IOException e){
-                        logger.warn("Couldn't copy additional application resource-file(s).", e);
+                .ifPresent(additionalAppResources -> {
+                    if( JavaDetectionTools.IS_JAVA_8 && !JavaDetectionTools.isAtLeastOracleJavaUpdateVersion(60) ){
+                        // pre-update60 did not contain any list of RelativeFileSets, so keep copying them
+                        logger.info("Copying additional app ressources...");
+                        try{
+                            copyRecursive(additionalAppResources.toPath(), jfxAppOutputDir.toPath(), context.getLogger());
+                        } catch(IOException e){
+                            logger.warn("Couldn't copy additional application resource-file(s).", e);
+                        }
+                        resourceFiles.clear();
+                        resourceFiles.addAll(collectResourceFiles(jfxAppOutputDir, logger));
+                        params.put(StandardBundlerParam.APP_RESOURCES.getID(), new RelativeFileSet(jfxAppOutputDir, resourceFiles));
+                        return;
+                    }
+                    logger.info("Adding additional app ressources...");
+                    additionalResourceFiles.addAll(collectResourceFiles(additionalAppResources, logger));
+                    if( !additionalResourceFiles.isEmpty() ){
+                        // the jfxAppOutputDir belongs to the jfxJar-task, so instead of copying additional files into it,
+                        // pass them as separated RelativeFileSet (supported since 1.8.0_60), later entries do overwrite earlier ones
+                        addAppResources(params, new RelativeFileSet(additionalAppResources, additionalResourceFiles));
                     }
                 });
+        resourceFiles.addAll(additionalResourceFiles);
 
-        // adding all resource-files
-        Set<File> resourceFiles = new HashSet<>();
-        try{
-            Files.walk(getAbsoluteOrProjectRelativeFile(project, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()).toPath())
-                    .map(p -> p.toFile())
-                    .filter(File::isFile)
-                    .filter(File::canRead)
-                    .forEach(f -> {
-                        logger.info(String.format("Add %s file to application resources.", f));
-                        resourceFiles.add(f);
-                    });
-        } catch(IOException e){
-            logger.warn("There was a problem while processing application files.", e);
+        if( ext.isUseCDSArchive() ){
+            addCDSArchive(params, ext, context);
         }
-        params.put(StandardBundlerParam.APP_RESOURCES.getID(), new RelativeFileSet(getAbsoluteOrProjectRelativeFile(project, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()), resourceFiles));
 
         Collection<String> duplicateKeys = new HashSet<>();
         Optional.ofNullable(ext.getBundleArguments()).ifPresent(bArguments -> {
@@ -161,7 +200,12 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         }
 
         if( !ext.isSkipMainClassScanning() ){
-            boolean mainClassInsideResourceJarFile = resourceFiles.stream().filter(resourceFile -> resourceFile.toString().endsWith(".jar")).filter(resourceJarFile -> isClassInsideJarFile(ext.getMainClass(), resourceJarFile)).findFirst().isPresent();
+            // the main-class normally is part of the JavaFX-jar, so check that one first
+            File mainJarFile = new File(jfxAppOutputDir, ext.getJfxMainAppJarName());
+            boolean mainClassInsideResourceJarFile = resourceFiles.stream()
+                    .filter(resourceFile -> resourceFile.toString().endsWith(".jar"))
+                    .sorted(Comparator.comparing(resourceJarFile -> !resourceJarFile.equals(mainJarFile)))
+                    .anyMatch(resourceJarFile -> isClassInsideJarFile(ext.getMainClass(), resourceJarFile));
             if( !mainClassInsideResourceJarFile ){
                 // warn user about missing class-file
                 logger.warn(String.format("Class with name %s was not found inside provided jar files!! JavaFX-application might not be working !!", ext.getMainClass()));
@@ -197,7 +241,12 @@ public class JfxNativeWorker extends JfxAbstractWorker {
                     addToMapWhenNotNull(launcher.getClasspath(), StandardBundlerParam.CLASSPATH.getID(), secondaryLauncherGenerationMap);
 
                     Optional.ofNullable(launcher.getJvmArgs()).ifPresent(jvmOptions -> {
-                        secondaryLauncherGenerationMap.put(StandardBundlerParam.JVM_OPTIONS.getID(), new ArrayList<>(jvmOptions));
+                        List<String> secondaryJvmOptions = new ArrayList<>(jvmOptions);
+                        if( ext.isUseCDSArchive() ){
+                            // having own jvmArgs would replace the ones from the main launcher
+                            secondaryJvmOptions.addAll(getCDSJvmOptions(ext));
+                        }
+                        secondaryLauncherGenerationMap.put(StandardBundlerParam.JVM_OPTIONS.getID(), secondaryJvmOptions);
                     });
                     Optional.ofNullable(launcher.getJvmProperties()).ifPresent(jvmProps -> {
                         secondaryLauncherGenerationMap.put(StandardBundlerParam.JVM_PROPERTIES.getID(), new HashMap<>(jvmProps));
@@ -246,7 +295,7 @@ public class JfxNativeWorker extends JfxAbstractWorker {
             if( !ext.isSkipNativeLauncherWorkaround167() ){
                 workarounds.applyWorkaround167(params);
             } else {
-                project.getLogger().info("Skipped workaround for native launcher regarding cfg-file-format.");
+                context.getLogger().info("Skipped workaround for native launcher regarding cfg-file-format.");
             }
         }
 
@@ -298,73 +347,253 @@ public class JfxNativeWorker extends JfxAbstractWorker {
             });
         });
 
-        boolean foundBundler = false;
-
         // the new feature for only using custom bundlers made it necessary to check for empty bundlers list
         if( loadedBundlers.isEmpty() ){
             throw new GradleException("There were no bundlers registered. Please make sure to add your custom bundlers as dependency to the bundlescript.");
         }
 
+        Map<String, Bundler> selectedBundlers = new LinkedHashMap<>();
         for( Bundler b : loadedBundlers ){
-            String currentRunningBundlerID = b.getID();
+            if( shouldBundlerRun(requestedBundler, b.getID(), ext, logger, params) ){
+                selectedBundlers.put(b.getID(), b);
+            }
+        }
+
+        if( ext.isIncrementalNativeAppImage() ){
+            incrementalAppImage = new IncrementalAppImage(context.getTemporaryDir(), logger);
+        }
+        if( ext.isUseNativeBundleCache() ){
+            File nativeBundleCacheDir = new File(context.getGradleUserHomeDir(), "caches/javafx-gradle-plugin-bundles");
+            if( ext.getNativeBundleCacheDir() != null ){
+                nativeBundleCacheDir = getAbsoluteOrProjectRelativeFile(context, ext.getNativeBundleCacheDir(), ext.isCheckForAbsolutePaths());
+            }
+            nativeBundleCache = new NativeBundleCache(nativeBundleCacheDir, getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()), logger);
+            nativeBundleCache.prune(ext.getNativeBundleCacheRetentionDays());
+        }
 
-            if( !shouldBundlerRun(requestedBundler, currentRunningBundlerID, ext, logger, params) ){
-                continue;
+        Map<String, Bundler> bundlersToRun = new LinkedHashMap<>();
+        if( ext.isReuseNativeAppImage() ){
+            // installers reuse the image of the application bundler, so that one has to run first
+            appImageReuse = new AppImageReuse(logger);
+            selectedBundlers.forEach((bundlerId, b) -> {
+                if( AppImageReuse.isImageBundler(bundlerId) ){
+                    bundlersToRun.put(bundlerId, b);
+                }
+            });
+        }
+        bundlersToRun.putAll(selectedBundlers);
+
+        if( appImageReuse != null && context.getAppImagesDir() != null ){
+            // application image was created by the task of the application bundler
+            String imageBundlerId = AppImageReuse.getImageBundlerId(requestedBundler);
+            File appImage = AppImageReuse.findAppImage(context.getAppImagesDir());
+            File imageParamsFile = new File(context.getAppImagesDir(), AppImageReuse.IMAGE_PARAMS_FILENAME);
+            if( imageBundlerId != null && appImage != null ){
+                // only when created using the same parameters, otherwise the image gets created here
+                if( appImageReuse.importImage(imageBundlerId, appImage, imageParamsFile, params) ){
+                    // already contains all fixed cfg-files (workaround for issue 205)
+                    bundlersToRun.remove(imageBundlerId);
+                }
+            } else {
+                logger.info("Could not find application image inside " + context.getAppImagesDir() + ", creating new application image.");
             }
+        }
 
-            foundBundler = true;
+        if( bundlersToRun.isEmpty() ){
+            throw new GradleException("No bundler found for given name " + requestedBundler + ". Please check your configuration.");
+        }
+
+        List<String> concurrentBundlerIds = bundlersToRun.keySet().stream()
+                .filter(CONCURRENT_BUNDLER_IDS::contains)
+                .collect(Collectors.toList());
+        if( ext.getNativeBundlerParallelism() <= 1 || concurrentBundlerIds.size() <= 1 || params.containsKey(StandardBundlerParam.BUILD_ROOT.getID()) ){
+            // same build-root would be used by all bundlers
+            bundlersToRun.values().forEach(b -> runBundler(b, ext, context, appName, params, logger));
+            return;
+        }
 
+        int bundlerParallelism = Math.min(ext.getNativeBundlerParallelism(), concurrentBundlerIds.size());
+        logger.info("Running " + concurrentBundlerIds.size() + " bundlers using " + bundlerParallelism + " threads: " + concurrentBundlerIds);
+        BundlerScheduler bundlerScheduler = new BundlerScheduler(bundlerParallelism);
+        if( Boolean.parseBoolean(String.valueOf(params.get(CFG_WORKAROUND_MARKER))) ){
+            // installers need the fixed cfg-files of the application bundler (workaround for issue 205)
+            bundlerScheduler.addDependency("deb", "linux.app");
+            bundlerScheduler.addDependency("rpm", "linux.app");
+        }
+        if( appImageReuse != null ){
+            concurrentBundlerIds.stream()
+                    .filter(bundlerId -> AppImageReuse.getImageBundlerId(bundlerId) != null)
+                    .forEach(bundlerId -> bundlerScheduler.addDependency(bundlerId, AppImageReuse.getImageBundlerId(bundlerId)));
+        }
+        bundlerScheduler.execute(concurrentBundlerIds, bundlerId -> {
+            Logger bundlerLogger = PrefixedLogger.create(logger, "[" + bundlerId + "] ");
+            PackagerLogger.attach(bundlerLogger, ext.isVerbose());
             try{
-                if( ext.getAdditionalBundlerResources() != null && workarounds.isWorkaroundForNativeMacBundlerNeeded(getAbsoluteOrProjectRelativeFile(project, ext.getAdditionalBundlerResources(), ext.isCheckForAbsolutePaths())) ){
-                    if( !ext.isSkipMacBundlerWorkaround() ){
-                        b = workarounds.applyWorkaroundForNativeMacBundler(b, currentRunningBundlerID, params, getAbsoluteOrProjectRelativeFile(project, ext.getAdditionalBundlerResources(), ext.isCheckForAbsolutePaths()));
-                    } else {
-                        logger.info("Skipping replacement of the 'mac.app'-bundler. Please make sure you know what you are doing!");
-                    }
+                runBundler(bundlersToRun.get(bundlerId), ext, context, appName, params, bundlerLogger);
+            } finally{
+                PackagerLogger.detach();
+            }
+        });
+
+        // custom bundlers might require the outcome of any other bundler
+        bundlersToRun.values().stream()
+                .filter(b -> !concurrentBundlerIds.contains(b.getID()))
+                .forEach(b -> runBundler(b, ext, context, appName, params, logger));
+    }
+
+    private void runBundler(Bundler b, JavaFXGradlePluginExtension ext, JfxWorkerContext context, String appName, Map<String, ? super Object> params, final Logger logger) {
+        String currentRunningBundlerID = b.getID();
+        try{
+            if( ext.getAdditionalBundlerResources() != null && workarounds.isWorkaroundForNativeMacBundlerNeeded(getAbsoluteOrProjectRelativeFile(context, ext.getAdditionalBundlerResources(), ext.isCheckForAbsolutePaths())) ){
+                if( !ext.isSkipMacBundlerWorkaround() ){
+                    b = workarounds.applyWorkaroundForNativeMacBundler(b, currentRunningBundlerID, params, getAbsoluteOrProjectRelativeFile(context, ext.getAdditionalBundlerResources(), ext.isCheckForAbsolutePaths()));
+                } else {
+                    logger.info("Skipping replacement of the 'mac.app'-bundler. Please make sure you know what you are doing!");
                 }
+            }
 
-                Map<String, ? super Object> paramsToBundleWith = new HashMap<>(params);
+            Map<String, ? super Object> paramsToBundleWith;
+            // might get modified by workarounds of concurrently running bundlers
+            synchronized(params){
+                paramsToBundleWith = new HashMap<>(params);
+            }
+            // bundlers are adding their default values (like temporary folders) while validating
+            Map<String, ? super Object> paramsBeforeValidation = new HashMap<>(paramsToBundleWith);
+            if( appImageReuse != null ){
+                appImageReuse.apply(currentRunningBundlerID, paramsToBundleWith);
+            }
 
-                if( b.validate(paramsToBundleWith) ){
+            if( b.validate(paramsToBundleWith) ){
 
-                    doPrepareBeforeBundling(ext, project, currentRunningBundlerID, logger, paramsToBundleWith);
+                doPrepareBeforeBundling(ext, context, currentRunningBundlerID, logger, paramsToBundleWith);
 
-                    // "jnlp bundler doesn't produce jnlp file and doesn't log any error/warning"
-                    // https://github.com/FibreFoX/javafx-gradle-plugin/issues/42
-                    // the new jnlp-bundler does not work like other bundlers, you have to provide some bundleArguments-entry :(
-                    if( "jnlp".equals(currentRunningBundlerID) && !paramsToBundleWith.containsKey("jnlp.outfile") ){
-                        if( ext.isFailOnError() ){
-                            throw new GradleException("You missed to specify some bundleArguments-entry, please set 'jnlp.outfile', e.g. using appName.");
-                        } else {
-                            logger.warn("You missed to specify some bundleArguments-entry, please set 'jnlp.outfile', e.g. using appName.");
-                            continue;
-                        }
+                // "jnlp bundler doesn't produce jnlp file and doesn't log any error/warning"
+                // https://github.com/FibreFoX/javafx-gradle-plugin/issues/42
+                // the new jnlp-bundler does not work like other bundlers, you have to provide some bundleArguments-entry :(
+                if( "jnlp".equals(currentRunningBundlerID) && !paramsToBundleWith.containsKey("jnlp.outfile") ){
+                    if( ext.isFailOnError() ){
+                        throw new GradleException("You missed to specify some bundleArguments-entry, please set 'jnlp.outfile', e.g. using appName.");
+                    } else {
+                        logger.warn("You missed to specify some bundleArguments-entry, please set 'jnlp.outfile', e.g. using appName.");
+                        return;
                     }
+                }
 
+                File bundle = null;
+                String bundleFingerprint = null;
+                if( nativeBundleCache != null && NativeBundleCache.isCacheable(currentRunningBundlerID) ){
+                    File additionalBundlerResources = Optional.ofNullable(ext.getAdditionalBundlerResources())
+                            .map(additionalBundlerResourcesPath -> getAbsoluteOrProjectRelativeFile(context, additionalBundlerResourcesPath, ext.isCheckForAbsolutePaths()))
+                            .orElse(null);
+                    File deployDir = Optional.ofNullable(ext.getDeployDir())
+                            .map(deployDirPath -> getAbsoluteOrProjectRelativeFile(context, deployDirPath, ext.isCheckForAbsolutePaths()))
+                            .orElse(null);
+                    bundleFingerprint = nativeBundleCache.getFingerprint(currentRunningBundlerID, paramsBeforeValidation, deployDir, additionalBundlerResources);
+                    if( bundleFingerprint != null ){
+                        bundle = nativeBundleCache.restore(bundleFingerprint);
+                    }
+                }
+                boolean restoredBundle = bundle != null;
+                if( bundle == null && incrementalAppImage != null ){
+                    bundle = incrementalAppImage.update(currentRunningBundlerID, paramsBeforeValidation);
+                }
+                if( bundle == null ){
                     // DO BUNDLE HERE ;) and don't get confused about all the other stuff
-                    b.execute(paramsToBundleWith, getAbsoluteOrProjectRelativeFile(project, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()));
+                    bundle = b.execute(paramsToBundleWith, getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()));
+                }
 
-                    applyWorkaroundsAfterBundling(currentRunningBundlerID, logger, ext, appName, params, project);
+                applyWorkaroundsAfterBundling(currentRunningBundlerID, logger, ext, appName, params, context);
+
+                if( bundleFingerprint != null && !restoredBundle ){
+                    nativeBundleCache.store(bundleFingerprint, bundle);
                 }
-            } catch(UnsupportedPlatformException e){
-                // quietly ignored
-            } catch(ConfigException e){
-                if( ext.isFailOnError() ){
-                    throw new GradleException("Skipping '" + b.getName() + "' because of configuration error '" + e.getMessage() + "'\nAdvice to fix: " + e.getAdvice());
-                } else {
-                    logger.info("Skipping '" + b.getName() + "' because of configuration error '" + e.getMessage() + "'\nAdvice to fix: " + e.getAdvice());
+                if( incrementalAppImage != null ){
+                    incrementalAppImage.imageCreated(currentRunningBundlerID, paramsBeforeValidation, bundle);
                 }
-            } catch(GradleException ex){
-                throw new GradleException("Got exception while executing bundler.", ex);
+                if( appImageReuse != null ){
+                    // the image already contains all fixed cfg-files
+                    appImageReuse.imageCreated(currentRunningBundlerID, paramsToBundleWith, bundle);
+                    if( currentRunningBundlerID.equals(ext.getBundler()) ){
+                        // makes it possible for the tasks of the installers to check if this image can be reused
+                        appImageReuse.writeImageParams(currentRunningBundlerID, new File(getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()), AppImageReuse.IMAGE_PARAMS_FILENAME));
+                    }
+                }
+            }
+        } catch(UnsupportedPlatformException e){
+            // quietly ignored
+        } catch(ConfigException e){
+            if( ext.isFailOnError() ){
+                throw new GradleException("Skipping '" + b.getName() + "' because of configuration error '" + e.getMessage() + "'\nAdvice to fix: " + e.getAdvice());
+            } else {
+                logger.info("Skipping '" + b.getName() + "' because of configuration error '" + e.getMessage() + "'\nAdvice to fix: " + e.getAdvice());
             }
+        } catch(GradleException ex){
+            throw new GradleException("Got exception while executing bundler.", ex);
         }
+    }
 
-        if( !foundBundler ){
-            throw new GradleException("No bundler found for given name " + requestedBundler + ". Please check your configuration.");
+    @SuppressWarnings("unchecked")
+    private void addAppResources(Map<String, ? super Object> params, RelativeFileSet additionalResources) {
+        String appResourcesListKey = StandardBundlerParam.APP_RESOURCES.getID() + "List";
+        List<RelativeFileSet> appResourcesList = new ArrayList<>();
+        if( params.containsKey(appResourcesListKey) ){
+            appResourcesList.addAll((List<RelativeFileSet>) params.get(appResourcesListKey));
+        } else {
+            appResourcesList.add((RelativeFileSet) params.get(StandardBundlerParam.APP_RESOURCES.getID()));
         }
+        appResourcesList.add(additionalResources);
+        params.put(appResourcesListKey, appResourcesList);
     }
 
-    private void applyWorkaroundsAfterBundling(String currentRunningBundlerID, final Logger logger, JavaFXGradlePluginExtension ext, String appName, Map<String, ? super Object> params, Project project) {
+    @SuppressWarnings("unchecked")
+    private void addCDSArchive(Map<String, ? super Object> params, JavaFXGradlePluginExtension ext, JfxWorkerContext context) {
+        if( JavaDetectionTools.IS_JAVA_8 && !JavaDetectionTools.isAtLeastOracleJavaUpdateVersion(60) ){
+            context.getLogger().warn("Using class-data-sharing archive requires JDK 1.8.0_60 or newer, skipped adding archive.");
+            return;
+        }
+        File cdsOutputDir = getAbsoluteOrProjectRelativeFile(context, ext.getCdsOutputDir(), ext.isCheckForAbsolutePaths());
+        File archiveFile = new File(cdsOutputDir, ext.getCdsArchiveName());
+        if( !archiveFile.exists() ){
+            throw new GradleException("Could not find class-data-sharing archive " + archiveFile + ", please run " + JfxGenerateCDSArchiveTask.JFX_TASK_NAME + " first.");
+        }
+        context.getLogger().info("Adding class-data-sharing archive...");
+        addAppResources(params, new RelativeFileSet(cdsOutputDir, Collections.singleton(archiveFile)));
+
+        List<String> jvmOptions = new ArrayList<>();
+        Optional.ofNullable(params.get(StandardBundlerParam.JVM_OPTIONS.getID())).ifPresent(existingJvmOptions -> {
+            jvmOptions.addAll((List<String>) existingJvmOptions);
+        });
+        jvmOptions.addAll(getCDSJvmOptions(ext));
+        params.put(StandardBundlerParam.JVM_OPTIONS.getID(), jvmOptions);
+    }
+
+    /*
+     * Using "auto" makes the JVM start without the archive when it does not match (e.g. different JDK or changed jar-files).
+     */
+    private List<String> getCDSJvmOptions(JavaFXGradlePluginExtension ext) {
+        List<String> cdsJvmOptions = new ArrayList<>(JfxGenerateCDSArchiveWorker.getUnlockOptions());
+        cdsJvmOptions.add("-Xshare:auto");
+        cdsJvmOptions.add("-XX:SharedArchiveFile=$APPDIR/" + ext.getCdsArchiveName());
+        return cdsJvmOptions;
+    }
+
+    private Set<File> collectResourceFiles(File resourcesFolder, Logger logger) {
+        Set<File> resourceFiles = new HashSet<>();
+        try(Stream<Path> walkstream = Files.walk(resourcesFolder.toPath())){
+            walkstream.map(p -> p.toFile())
+                    .filter(File::isFile)
+                    .filter(File::canRead)
+                    .forEach(f -> {
+                        logger.info(String.format("Add %s file to application resources.", f));
+                        resourceFiles.add(f);
+                    });
+        } catch(IOException e){
+            logger.warn("There was a problem while processing application files.", e);
+        }
+        return resourceFiles;
+    }
+
+    private void applyWorkaroundsAfterBundling(String currentRunningBundlerID, final Logger logger, JavaFXGradlePluginExtension ext, String appName, Map<String, ? super Object> params, JfxWorkerContext context) {
         // Workaround for "Native package for Ubuntu doesn't work"
         // https://github.com/javafx-maven-plugin/javafx-maven-plugin/issues/124
         // real bug: linux-launcher from oracle-jdk starting from 1.8.0u40 logic to determine .cfg-filename
@@ -381,10 +610,13 @@ public class JfxNativeWorker extends JfxAbstractWorker {
 
                     workarounds.applyWorkaround124(appName, nativeLaunchers);
                     // only apply workaround for issue 205 when having workaround for issue 124 active
-                    if( Boolean.parseBoolean(String.valueOf(params.get(CFG_WORKAROUND_MARKER))) && !Boolean.parseBoolean((String) params.get(CFG_WORKAROUND_DONE_MARKER)) ){
-                        logger.info("Preparing workaround for oracle-jdk-bug since 1.8.0u40 regarding native linux launcher(s) inside native linux installers.");
-                        workarounds.applyWorkaround205(appName, nativeLaunchers, params);
-                        params.put(CFG_WORKAROUND_DONE_MARKER, "true");
+                    // (other bundlers might be copying the parameters at the same time)
+                    synchronized(params){
+                        if( Boolean.parseBoolean(String.valueOf(params.get(CFG_WORKAROUND_MARKER))) && !Boolean.parseBoolean((String) params.get(CFG_WORKAROUND_DONE_MARKER)) ){
+                            logger.info("Preparing workaround for oracle-jdk-bug since 1.8.0u40 regarding native linux launcher(s) inside native linux installers.");
+                            workarounds.applyWorkaround205(appName, nativeLaunchers, params);
+                            params.put(CFG_WORKAROUND_DONE_MARKER, "true");
+                        }
                     }
                 } else {
                     logger.info("Skipped workaround for native linux launcher(s).");
@@ -415,10 +647,10 @@ public class JfxNativeWorker extends JfxAbstractWorker {
                     // https://bugs.openjdk.java.net/browse/JDK-8088866?focusedCommentId=13889898#comment-13889898
                     if( !ext.isNoBlobSigning() ){
                         logger.info("Signing jar-files using BLOB method.");
-                        signJarFilesUsingBlobSigning(project, ext);
+                        signJarFilesUsingBlobSigning(context, ext);
                     } else {
                         logger.info("Signing jar-files using jarsigner.");
-                        signJarFiles(project, ext);
+                        signJarFiles(context, ext);
                     }
                     workarounds.applyWorkaround185(ext.isSkipSizeRecalculationForJNLP185());
                 } else {
@@ -428,7 +660,7 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         }
     }
 
-    private void doPrepareBeforeBundling(JavaFXGradlePluginExtension ext, Project project, String currentRunningBundlerID, final Logger logger, Map<String, ? super Object> paramsToBundleWith) {
+    private void doPrepareBeforeBundling(JavaFXGradlePluginExtension ext, JfxWorkerContext context, String currentRunningBundlerID, final Logger logger, Map<String, ? super Object> paramsToBundleWith) {
         // copy all files every time a bundler runs, because they might cleanup their folders,
         // but user might have extend existing bundler using same foldername (which would end up deleted/cleaned up)
         // fixes "Make it possible to have additional resources for bundlers"
@@ -437,7 +669,7 @@ public class JfxNativeWorker extends JfxAbstractWorker {
             boolean skipCopyAdditionalBundlerResources = false;
 
             // keep previous behaviour
-            Path additionalBundlerResources = getAbsoluteOrProjectRelativeFile(project, ext.getAdditionalBundlerResources(), ext.isCheckForAbsolutePaths()).toPath();
+            Path additionalBundlerResources = getAbsoluteOrProjectRelativeFile(context, ext.getAdditionalBundlerResources(), ext.isCheckForAbsolutePaths()).toPath();
             Path resolvedBundlerFolder = additionalBundlerResources.resolve(currentRunningBundlerID);
 
             logger.info("Found additional bundler resources, trying to copy all files into build root, using:" + additionalBundlerResources.toFile().getAbsolutePath());
@@ -524,7 +756,7 @@ public class JfxNativeWorker extends JfxAbstractWorker {
             if( !skipCopyAdditionalBundlerResources ){
                 try{
                     logger.info("Copying additional bundler resources into: " + targetFolder.toFile().getAbsolutePath());
-                    copyRecursive(sourceFolder, targetFolder, project.getLogger());
+                    copyRecursive(sourceFolder, targetFolder, context.getLogger());
                 } catch(IOException e){
                     logger.warn("Couldn't copy additional bundler resource-file(s).", e);
                 }
@@ -536,7 +768,7 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         // check if we need to inform the user about low performance even on SSD
         // https://github.com/FibreFoX/javafx-gradle-plugin/issues/41
         if( System.getProperty("os.name").toLowerCase().startsWith("linux") && "deb".equals(currentRunningBundlerID) ){
-            File generationTarget = getAbsoluteOrProjectRelativeFile(project, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths());
+            File generationTarget = getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths());
             AtomicBoolean needsWarningAboutSlowPerformance = new AtomicBoolean(false);
             generationTarget.toPath().getFileSystem().getFileStores().forEach(store -> {
                 if( "ext4".equals(store.type()) ){
@@ -597,11 +829,11 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         map.put(key, value);
     }
 
-    private List<File> getGeneratedJNLPFiles(Project project, JavaFXGradlePluginExtension ext) {
+    private List<File> getGeneratedJNLPFiles(JfxWorkerContext context, JavaFXGradlePluginExtension ext) {
         List<File> generatedFiles = new ArrayList<>();
 
         // try-ressource, because walking on files is lazy, resulting in file-handler left open otherwise
-        try(Stream<Path> walkstream = Files.walk(getAbsoluteOrProjectRelativeFile(project, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()).toPath())){
+        try(Stream<Path> walkstream = Files.walk(getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths()).toPath())){
             walkstream.forEach(fileEntry -> {
                 File possibleJNLPFile = fileEntry.toFile();
                 String fileName = possibleJNLPFile.getName();
@@ -616,9 +848,9 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         return generatedFiles;
     }
 
-    private List<String> getJARFilesFromJNLPFiles(Project project, JavaFXGradlePluginExtension ext) {
+    private List<String> getJARFilesFromJNLPFiles(JfxWorkerContext context, JavaFXGradlePluginExtension ext) {
         List<String> jarFiles = new ArrayList<>();
-        getGeneratedJNLPFiles(project, ext).stream().map(jnlpFile -> jnlpFile.toPath()).forEach(jnlpPath -> {
+        getGeneratedJNLPFiles(context, ext).stream().map(jnlpFile -> jnlpFile.toPath()).forEach(jnlpPath -> {
             try{
                 List<String> allLines = Files.readAllLines(jnlpPath);
                 allLines.stream().filter(line -> line.trim().startsWith("<jar href=")).forEach(line -> {
@@ -673,10 +905,10 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         return launcher;
     }
 
-    private void signJarFilesUsingBlobSigning(Project project, JavaFXGradlePluginExtension ext) {
-        checkSigningConfiguration(project, ext);
+    private void signJarFilesUsingBlobSigning(JfxWorkerContext context, JavaFXGradlePluginExtension ext) {
+        checkSigningConfiguration(context, ext);
 
-        File keyStore = getAbsoluteOrProjectRelativeFile(project, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
+        File keyStore = getAbsoluteOrProjectRelativeFile(context, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
 
         SignJarParams signJarParams = new SignJarParams();
         signJarParams.setVerbose(ext.isVerbose());
@@ -686,14 +918,14 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         signJarParams.setKeyPass(ext.getKeyPassword());
         signJarParams.setStoreType(ext.getKeyStoreType());
 
-        File nativeOutputDir = getAbsoluteOrProjectRelativeFile(project, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths());
+        File nativeOutputDir = getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths());
 
         signJarParams.addResource(nativeOutputDir, ext.getJfxMainAppJarName());
 
         // add all gathered jar-files as resources so be signed
-        getJARFilesFromJNLPFiles(project, ext).forEach(jarFile -> signJarParams.addResource(nativeOutputDir, jarFile));
+        getJARFilesFromJNLPFiles(context, ext).forEach(jarFile -> signJarParams.addResource(nativeOutputDir, jarFile));
 
-        project.getLogger().info("Signing JAR files for webstart bundle");
+        context.getLogger().info("Signing JAR files for webstart bundle");
 
         try{
             new PackagerLib().signJar(signJarParams);
@@ -702,16 +934,16 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         }
     }
 
-    private void signJarFiles(Project project, JavaFXGradlePluginExtension ext) {
-        checkSigningConfiguration(project, ext);
+    private void signJarFiles(JfxWorkerContext context, JavaFXGradlePluginExtension ext) {
+        checkSigningConfiguration(context, ext);
 
-        File nativeOutputDir = getAbsoluteOrProjectRelativeFile(project, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths());
+        File nativeOutputDir = getAbsoluteOrProjectRelativeFile(context, ext.getNativeOutputDir(), ext.isCheckForAbsolutePaths());
         AtomicReference<GradleException> exception = new AtomicReference<>();
-        getJARFilesFromJNLPFiles(project, ext).stream().map(relativeJarFilePath -> new File(nativeOutputDir, relativeJarFilePath)).forEach(jarFile -> {
+        getJARFilesFromJNLPFiles(context, ext).stream().map(relativeJarFilePath -> new File(nativeOutputDir, relativeJarFilePath)).forEach(jarFile -> {
             try{
                 // only sign when there wasn't already some problem
                 if( exception.get() == null ){
-                    signJar(project, ext, jarFile.getAbsoluteFile());
+                    signJar(context, ext, jarFile.getAbsoluteFile());
                 }
             } catch(GradleException ex){
                 // rethrow later (same trick is done inside apache-tomee project ;D)
@@ -723,20 +955,20 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         }
     }
 
-    private void checkSigningConfiguration(Project project, JavaFXGradlePluginExtension ext) {
-        File keyStore = getAbsoluteOrProjectRelativeFile(project, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
+    private void checkSigningConfiguration(JfxWorkerContext context, JavaFXGradlePluginExtension ext) {
+        File keyStore = getAbsoluteOrProjectRelativeFile(context, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
         if( !keyStore.exists() ){
-            project.getLogger().lifecycle("Keystore does not exist (expected at: " + keyStore + ")");
+            context.getLogger().lifecycle("Keystore does not exist (expected at: " + keyStore + ")");
             throw new GradleException("Keystore does not exist (expected at: " + keyStore + ")");
         }
 
         if( ext.getKeyStoreAlias() == null || ext.getKeyStoreAlias().isEmpty() ){
-            project.getLogger().lifecycle("A 'keyStoreAlias' is required for signing JARs");
+            context.getLogger().lifecycle("A 'keyStoreAlias' is required for signing JARs");
             throw new GradleException("A 'keyStoreAlias' is required for signing JARs");
         }
 
         if( ext.getKeyStorePassword() == null || ext.getKeyStorePassword().isEmpty() ){
-            project.getLogger().lifecycle("A 'keyStorePassword' is required for signing JARs");
+            context.getLogger().lifecycle("A 'keyStorePassword' is required for signing JARs");
             throw new GradleException("A 'keyStorePassword' is required for signing JARs");
         }
 
@@ -746,8 +978,8 @@ public class JfxNativeWorker extends JfxAbstractWorker {
         }
     }
 
-    private void signJar(Project project, JavaFXGradlePluginExtension ext, File jarFile) {
-        File keyStore = getAbsoluteOrProjectRelativeFile(project, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
+    private void signJar(JfxWorkerContext context, JavaFXGradlePluginExtension ext, File jarFile) {
+        File keyStore = getAbsoluteOrProjectRelativeFile(context, ext.getKeyStore(), ext.isCheckForAbsolutePaths());
         List<String> command = new ArrayList<>();
         command.add(getEnvironmentRelativeExecutablePath(ext.isUseEnvironmentRelativeExecutables()) + "jarsigner");
         command.add("-strict");
@@ -774,15 +1006,15 @@ public class JfxNativeWorker extends JfxAbstractWorker {
             }
 
             if( ext.isVerbose() ){
-                project.getLogger().lifecycle("Running command: " + String.join(" ", command));
+                context.getLogger().lifecycle("Running command: " + String.join(" ", command));
             }
 
-            pb.directory(project.getProjectDir())
+            pb.directory(context.getProjectDir())
                     .command(command);
             Process p = pb.start();
 
             if( isGradleDaemonMode() ){
-                redirectIO(p, project.getLogger());
+                redirectIO(p, context.getLogger());
             }
 
             p.waitFor();
@@ -796,15 +1028,37 @@ public class JfxNativeWorker extends JfxAbstractWorker {
 
     private boolean isClassInsideJarFile(String classname, File jarFile) {
         String requestedJarEntryName = classname.replace(".", "/") + ".class";
-        try{
-            JarFile jarFileToSearchIn = new JarFile(jarFile, false, JarFile.OPEN_READ);
-            return jarFileToSearchIn.stream().parallel().filter(jarEntry -> {
-                return jarEntry.getName().equals(requestedJarEntryName);
-            }).findAny().isPresent();
+        // dependencies rarely change, so remember the result as long as the gradle-daemon is running
+        String lookupKey = jarFile.getAbsolutePath() + "!/" + requestedJarEntryName;
+        JarEntryLookup cachedLookup = JAR_ENTRY_LOOKUPS.get(lookupKey);
+        if( cachedLookup != null && cachedLookup.isValidFor(jarFile) ){
+            return cachedLookup.found;
+        }
+        boolean found = false;
+        try(ZipFile jarFileToSearchIn = new ZipFile(jarFile)){
+            found = jarFileToSearchIn.getEntry(requestedJarEntryName) != null;
         } catch(IOException ex){
             // NO-OP
         }
-        return false;
+        JAR_ENTRY_LOOKUPS.put(lookupKey, new JarEntryLookup(jarFile, found));
+        return found;
+    }
+
+    private static class JarEntryLookup {
+
+        private final long size;
+        private final long lastModified;
+        private final boolean found;
+
+        JarEntryLookup(File jarFile, boolean found) {
+            this.size = jarFile.length();
+            this.lastModified = jarFile.lastModified();
+            this.found = found;
+        }
+
+        boolean isValidFor(File jarFile) {
+            return size == jarFile.length() && lastModified == jarFile.lastModified();
+        }
     }
 
 }
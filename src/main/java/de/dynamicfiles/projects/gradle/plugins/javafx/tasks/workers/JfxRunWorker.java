@@ -15,14 +15,16 @@
  */
 package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers;
 
-import com.oracle.tools.packager.Log;
 import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.PackagerLogger;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.gradle.api.GradleException;
-import org.gradle.api.Project;
 
 /**
  *
@@ -30,17 +32,36 @@ import org.gradle.api.Project;
  */
 public class JfxRunWorker extends JfxAbstractWorker {
 
-    public void jfxrun(Project project) {
+    public void jfxrun(JfxWorkerContext context) {
         // get our configuration
-        JavaFXGradlePluginExtension ext = project.getExtensions().getByType(JavaFXGradlePluginExtension.class);
-        addDeployDirToSystemClassloader(project, ext);
+        JavaFXGradlePluginExtension ext = context.getExtension();
+        addDeployDirToSystemClassloader(context, ext);
 
         // set logger-level
-        Log.setLogger(new Log.Logger(ext.isVerbose()));
-        project.getLogger().lifecycle("Running JavaFX Application");
+        PackagerLogger.attach(context.getLogger(), ext.isVerbose());
+        context.getLogger().lifecycle("Running JavaFX Application");
 
+        List<String> command = createRunCommand(ext, Collections.emptyList());
+        File workingDirectory = getAbsoluteOrProjectRelativeFile(context, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths());
+        try{
+            int exitValue = runCommand(command, workingDirectory, 0, ext, context);
+            if( exitValue != 0 ){
+                throw new GradleException("There was an exception while executing JavaFX Application. Please check build-log.");
+            }
+        } catch(IOException | InterruptedException ex){
+            throw new GradleException("There was an exception while executing JavaFX Application.", ex);
+        }
+    }
+
+    /**
+     * Creates the command for running the JavaFX-jar like "java -jar", including all configured parameters.
+     *
+     * @param additionalJavaParameters parameters passed to the JVM before the configured ones
+     */
+    protected List<String> createRunCommand(JavaFXGradlePluginExtension ext, List<String> additionalJavaParameters) {
         List<String> command = new ArrayList<>();
         command.add(getEnvironmentRelativeExecutablePath(ext.isUseEnvironmentRelativeExecutables()) + "java");
+        command.addAll(additionalJavaParameters);
 
         Optional.ofNullable(ext.getRunJavaParameter()).ifPresent(runJavaParameter -> {
             if( runJavaParameter.trim().isEmpty() ){
@@ -64,32 +85,49 @@ public class JfxRunWorker extends JfxAbstractWorker {
             }
             command.add(runAppParameter);
         });
+        return command;
+    }
 
-        try{
-            ProcessBuilder pb = new ProcessBuilder();
-            if( !isGradleDaemonMode() ){
-                pb.inheritIO();
-            }
+    /**
+     * @param timeoutInSeconds when greater than zero, the process gets stopped after that time (which is not treated as failure)
+     *
+     * @return exit value of the process, or zero when it was stopped because of the timeout
+     */
+    protected int runCommand(List<String> command, File workingDirectory, long timeoutInSeconds, JavaFXGradlePluginExtension ext, JfxWorkerContext context) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder();
+        if( !isGradleDaemonMode() ){
+            pb.inheritIO();
+        }
 
-            if( ext.isVerbose() ){
-                project.getLogger().lifecycle("Running command: " + String.join(" ", command));
-            }
+        if( ext.isVerbose() ){
+            context.getLogger().lifecycle("Running command: " + String.join(" ", command));
+        }
 
-            pb.directory(getAbsoluteOrProjectRelativeFile(project, ext.getJfxAppOutputDir(), ext.isCheckForAbsolutePaths()))
-                    .command(command);
-            Process p = pb.start();
+        pb.directory(workingDirectory)
+                .command(command);
+        Process p = pb.start();
 
+        if( timeoutInSeconds <= 0 ){
             if( isGradleDaemonMode() ){
-                redirectIO(p, project.getLogger());
+                redirectIO(p, context.getLogger());
             }
+            p.waitFor();
+            return p.exitValue();
+        }
 
+        if( isGradleDaemonMode() ){
+            // reading the output would block until the process exits by itself
+            new Thread(new StreamGobbler(p.getInputStream(), context.getLogger()::lifecycle)).start();
+            new Thread(new StreamGobbler(p.getErrorStream(), context.getLogger()::lifecycle)).start();
+        }
+        if( !p.waitFor(timeoutInSeconds, TimeUnit.SECONDS) ){
+            context.getLogger().lifecycle("Stopping process after " + timeoutInSeconds + " seconds");
+            // not forcing it, making it possible for the JVM to finish all files
+            p.destroy();
             p.waitFor();
-            if( p.exitValue() != 0 ){
-                throw new GradleException("There was an exception while executing JavaFX Application. Please check build-log.");
-            }
-        } catch(IOException | InterruptedException ex){
-            throw new GradleException("There was an exception while executing JavaFX Application.", ex);
+            return 0;
         }
+        return p.exitValue();
     }
 
 }
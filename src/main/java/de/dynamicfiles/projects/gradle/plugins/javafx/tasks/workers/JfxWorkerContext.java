@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.JavaFXGradlePluginExtension;
+import java.io.File;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * Everything some worker needs from the project, captured before the tasks are executed. Workers must not
+ * access the project itself, making it possible to serialize this context (e.g. for the configuration-cache).
+ *
+ * @author Danny Althoff
+ */
+public class JfxWorkerContext implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final JavaFXGradlePluginExtension extension;
+    private final File projectDir;
+    private final File temporaryDir;
+    private final File jarArchive;
+    private final Map<String, File> dependencies = new LinkedHashMap<>();
+    private File gradleUserHomeDir = null;
+    private File appImagesDir = null;
+    private boolean runningIsolated = false;
+    private transient Logger logger;
+
+    /**
+     * @param extension gets copied, so later changes of the "jfx"-configuration do not change this context
+     * @param temporaryDir temporary directory of the executing task, which is kept between builds
+     * @param jarArchive the jar-file created by the "jar"-task
+     */
+    public JfxWorkerContext(JavaFXGradlePluginExtension extension, File projectDir, File temporaryDir, File jarArchive, Logger logger) {
+        this.extension = extension.copy();
+        this.projectDir = projectDir;
+        this.temporaryDir = temporaryDir;
+        this.jarArchive = jarArchive;
+        this.logger = logger;
+    }
+
+    public JavaFXGradlePluginExtension getExtension() {
+        return extension;
+    }
+
+    public File getProjectDir() {
+        return projectDir;
+    }
+
+    public File getTemporaryDir() {
+        return temporaryDir;
+    }
+
+    public File getJarArchive() {
+        return jarArchive;
+    }
+
+    /**
+     * @return all dependencies of the project (mapped by their filename, keeping their order)
+     */
+    public Map<String, File> getDependencies() {
+        return Collections.unmodifiableMap(dependencies);
+    }
+
+    public void setDependencies(Map<String, File> dependencies) {
+        this.dependencies.clear();
+        this.dependencies.putAll(dependencies);
+    }
+
+    public File getGradleUserHomeDir() {
+        return gradleUserHomeDir;
+    }
+
+    public void setGradleUserHomeDir(File gradleUserHomeDir) {
+        this.gradleUserHomeDir = gradleUserHomeDir;
+    }
+
+    /**
+     * @return folder containing the application image created by some other task, or null
+     */
+    public File getAppImagesDir() {
+        return appImagesDir;
+    }
+
+    public void setAppImagesDir(File appImagesDir) {
+        this.appImagesDir = appImagesDir;
+    }
+
+    /**
+     * @return true when running inside some isolated classloader (or process), having the deploy-directory on its classpath
+     */
+    public boolean isRunningIsolated() {
+        return runningIsolated;
+    }
+
+    public void setRunningIsolated(boolean runningIsolated) {
+        this.runningIsolated = runningIsolated;
+    }
+
+    public Logger getLogger() {
+        if( logger == null ){
+            // after being deserialized
+            logger = Logging.getLogger(JfxWorkerContext.class);
+        }
+        return logger;
+    }
+}
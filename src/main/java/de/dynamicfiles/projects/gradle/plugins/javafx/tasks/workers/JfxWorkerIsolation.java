@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tasks.workers;
+
+import java.io.File;
+import java.util.List;
+import org.gradle.api.GradleException;
+import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.util.GradleVersion;
+import org.gradle.workers.IsolationMode;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Submits workers to the worker-API of gradle. Using the classloader-isolation keeps the buildscript-classloader
+ * (and therefor the gradle-daemon) untouched, using the process-isolation gives the worker its own heap.
+ *
+ * @author Danny Althoff
+ */
+public class JfxWorkerIsolation {
+
+    public static final String ISOLATION_NONE = "none";
+    public static final String ISOLATION_CLASSLOADER = "classloader";
+    public static final String ISOLATION_PROCESS = "process";
+
+    private final String isolation;
+    private final String maxHeapSize;
+    // not typed as WorkerExecutor, as the worker-API is not available before gradle 4.0
+    private Object workerExecutor = null;
+
+    public JfxWorkerIsolation(String isolation, String maxHeapSize) {
+        this.isolation = isolation == null ? ISOLATION_NONE : isolation.trim().toLowerCase();
+        this.maxHeapSize = maxHeapSize;
+        switch(this.isolation) {
+            case ISOLATION_NONE:
+            case ISOLATION_CLASSLOADER:
+            case ISOLATION_PROCESS:
+                break;
+            default:
+                throw new GradleException("Unknown worker isolation: " + isolation + ", please use one of: " + String.join(", ", ISOLATION_NONE, ISOLATION_CLASSLOADER, ISOLATION_PROCESS));
+        }
+    }
+
+    /**
+     * The worker-API with isolation-modes is available since gradle 4.0, older versions run the workers directly.
+     */
+    public boolean isEnabled() {
+        return !ISOLATION_NONE.equals(isolation) && GradleVersion.current().compareTo(GradleVersion.version("4.0")) >= 0;
+    }
+
+    public String getIsolation() {
+        return isolation;
+    }
+
+    /**
+     * Looks up the worker-API while configuring the task, so the task-action does not need to access any services.
+     *
+     * @param services services of the submitting task
+     */
+    public void prepare(ServiceRegistry services) {
+        if( !isEnabled() ){
+            throw new GradleException("Worker isolation is not enabled.");
+        }
+        workerExecutor = services.get(WorkerExecutor.class);
+    }
+
+    /**
+     * @return true when the worker-API was prepared for submitting workers
+     */
+    public boolean isPrepared() {
+        return workerExecutor != null;
+    }
+
+    /**
+     * @param taskName name of the task to run isolated, see {@link JfxIsolatedWorker}
+     * @param classpath additional classpath of the worker (the plugin itself is always part of it)
+     */
+    public void submit(String taskName, JfxWorkerContext context, List<File> classpath) {
+        if( !isPrepared() ){
+            throw new GradleException("Worker isolation was not prepared.");
+        }
+        submitToWorkerExecutor(taskName, context, classpath);
+    }
+
+    /*
+     * Separated method, as the worker-API is not available before gradle 4.0.
+     */
+    private void submitToWorkerExecutor(String taskName, JfxWorkerContext context, List<File> classpath) {
+        ((WorkerExecutor) workerExecutor).submit(JfxIsolatedWorker.class, workerConfiguration -> {
+            workerConfiguration.classpath(classpath);
+            workerConfiguration.params(taskName, context);
+            if( ISOLATION_PROCESS.equals(isolation) ){
+                workerConfiguration.setIsolationMode(IsolationMode.PROCESS);
+                if( maxHeapSize != null ){
+                    workerConfiguration.forkOptions(forkOptions -> forkOptions.setMaxHeapSize(maxHeapSize));
+                }
+            } else {
+                workerConfiguration.setIsolationMode(IsolationMode.CLASSLOADER);
+            }
+        });
+    }
+}
@@ -46,6 +46,8 @@ public abstract class ExampleProjectTest {
             GRADLE_VERSIONS_TO_TEST_AGAINST.add("3.3");
         }
         GRADLE_VERSIONS_TO_TEST_AGAINST.add("4.4.1");
+        // supports lazy task registration
+        GRADLE_VERSIONS_TO_TEST_AGAINST.add("4.10.3");
     }
 
     protected static String versionString = "+";
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.BundlerScheduler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gradle.api.GradleException;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Danny Althoff
+ */
+public class BundlerSchedulerOrder {
+
+    @Test
+    public void runAllBundlers() {
+        List<String> executedBundlers = Collections.synchronizedList(new ArrayList<>());
+        new BundlerScheduler(3).execute(Arrays.asList("windows.app", "exe", "msi", "jnlp"), executedBundlers::add);
+        assertEquals(executedBundlers.size(), 4);
+        assertTrue(executedBundlers.containsAll(Arrays.asList("windows.app", "exe", "msi", "jnlp")));
+    }
+
+    @Test
+    public void runRequiredBundlersFirst() {
+        List<String> executedBundlers = Collections.synchronizedList(new ArrayList<>());
+        BundlerScheduler scheduler = new BundlerScheduler(4);
+        scheduler.addDependency("deb", "linux.app");
+        scheduler.addDependency("rpm", "linux.app");
+        // listed before the required bundler
+        scheduler.execute(Arrays.asList("deb", "rpm", "linux.app"), executedBundlers::add);
+        assertEquals(executedBundlers.size(), 3);
+        assertEquals(executedBundlers.get(0), "linux.app");
+    }
+
+    @Test
+    public void ignoreRequiredBundlersNotRunning() {
+        List<String> executedBundlers = Collections.synchronizedList(new ArrayList<>());
+        BundlerScheduler scheduler = new BundlerScheduler(2);
+        scheduler.addDependency("deb", "linux.app");
+        scheduler.execute(Collections.singletonList("deb"), executedBundlers::add);
+        assertEquals(executedBundlers, Collections.singletonList("deb"));
+    }
+
+    @Test
+    public void runBundlersConcurrently() {
+        CountDownLatch allStarted = new CountDownLatch(2);
+        new BundlerScheduler(2).execute(Arrays.asList("exe", "msi"), bundlerId -> {
+            allStarted.countDown();
+            try{
+                // would time out when running one after another
+                assertTrue(allStarted.await(10, TimeUnit.SECONDS));
+            } catch(InterruptedException ex){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+
+    @Test
+    public void stopAfterFailingBundler() {
+        AtomicInteger executedBundlers = new AtomicInteger();
+        BundlerScheduler scheduler = new BundlerScheduler(1);
+        scheduler.addDependency("deb", "linux.app");
+        try{
+            scheduler.execute(Arrays.asList("linux.app", "deb", "rpm"), bundlerId -> {
+                executedBundlers.incrementAndGet();
+                if( "linux.app".equals(bundlerId) ){
+                    throw new GradleException("failed " + bundlerId);
+                }
+            });
+            fail("Failure of bundler was not rethrown");
+        } catch(GradleException ex){
+            assertEquals(ex.getMessage(), "failed linux.app");
+        }
+        assertEquals(executedBundlers.get(), 1);
+    }
+
+    @Test
+    public void rethrowErrorsOfBundlers() {
+        try{
+            new BundlerScheduler(1).execute(Collections.singletonList("jnlp"), bundlerId -> {
+                throw new AssertionError("failed " + bundlerId);
+            });
+            fail("Failure of bundler was not rethrown");
+        } catch(AssertionError ex){
+            assertFalse(ex.getMessage().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.DependencyFilter;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Danny Althoff
+ */
+public class DependencyFilterPatterns {
+
+    @Test
+    public void includeEverythingWithoutRules() {
+        DependencyFilter filter = new DependencyFilter(null, Collections.emptyList());
+        assertFalse(filter.hasRules());
+        assertTrue(filter.isIncluded("org.example", "library", "1.0", "library-1.0.jar"));
+        assertFalse(filter.isExcluded("org.example", "library", "1.0", "library-1.0.jar"));
+    }
+
+    @Test
+    public void ignoreBlankPatterns() {
+        DependencyFilter filter = new DependencyFilter(Arrays.asList("", "  ", null), null);
+        assertFalse(filter.hasRules());
+    }
+
+    @Test
+    public void matchGroupAndName() {
+        DependencyFilter filter = new DependencyFilter(null, Collections.singletonList("org.projectlombok:lombok"));
+        assertTrue(filter.hasRules());
+        assertTrue(filter.isExcluded("org.projectlombok", "lombok", "1.16.20", "lombok-1.16.20.jar"));
+        assertFalse(filter.isExcluded("org.projectlombok", "lombok-utils", "1.16.20", "lombok-utils-1.16.20.jar"));
+        // file-dependencies do not have any coordinates
+        assertFalse(filter.isExcluded(null, null, null, "lombok-1.16.20.jar"));
+    }
+
+    @Test
+    public void matchVersion() {
+        DependencyFilter filter = new DependencyFilter(null, Collections.singletonList("org.example:library:1.*"));
+        assertTrue(filter.isExcluded("org.example", "library", "1.2", "library-1.2.jar"));
+        assertFalse(filter.isExcluded("org.example", "library", "2.0", "library-2.0.jar"));
+    }
+
+    @Test
+    public void matchWildcardsWithinCoordinates() {
+        DependencyFilter filter = new DependencyFilter(null, Arrays.asList("*:library", "org.example:lib?ary"));
+        assertTrue(filter.isExcluded("com.example", "library", "1.0", "library-1.0.jar"));
+        assertTrue(filter.isExcluded("org.example", "libxary", "1.0", "libxary-1.0.jar"));
+        assertFalse(filter.isExcluded("org.example", "libary", "1.0", "libary-1.0.jar"));
+        // patterns without colon are matching the filename only
+        assertFalse(new DependencyFilter(null, Collections.singletonList("org.*")).isExcluded("org.example", "library", "1.0", "library-1.0.jar"));
+    }
+
+    @Test
+    public void matchFileNames() {
+        DependencyFilter filter = new DependencyFilter(Collections.singletonList("*.jar"), Collections.singletonList("lombok-*.jar"));
+        assertTrue(filter.isIncluded(null, null, null, "library.jar"));
+        assertFalse(filter.isIncluded(null, null, null, "library.zip"));
+        assertTrue(filter.isExcluded(null, null, null, "lombok-1.16.20.jar"));
+        assertTrue(filter.isExcluded("org.projectlombok", "lombok", "1.16.20", "lombok-1.16.20.jar"));
+    }
+
+    @Test
+    public void requireAnyMatchingInclude() {
+        DependencyFilter filter = new DependencyFilter(Arrays.asList("org.example:*", "javafx-*.jar"), null);
+        assertTrue(filter.isIncluded("org.example", "library", "1.0", "library-1.0.jar"));
+        assertTrue(filter.isIncluded(null, null, null, "javafx-extras.jar"));
+        assertFalse(filter.isIncluded("com.example", "library", "1.0", "library-1.0.jar"));
+    }
+}
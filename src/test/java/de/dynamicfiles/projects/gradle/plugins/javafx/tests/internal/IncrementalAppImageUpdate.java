@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import com.oracle.tools.packager.RelativeFileSet;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.IncrementalAppImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.gradle.api.logging.Logging;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Danny Althoff
+ */
+public class IncrementalAppImageUpdate {
+
+    private static final String BUNDLER_ID = "linux.app";
+
+    private File tempFolder;
+    private File resourcesFolder;
+    private File appImage;
+    private IncrementalAppImage incrementalAppImage;
+
+    /*
+     * Jar-files on the root of the application resources would have to be real jar-files, as their manifest is part of the configuration.
+     */
+    @BeforeMethod
+    public void createAppImage() throws IOException {
+        tempFolder = Files.createTempDirectory("javafx-gradle-plugin-tests-" + getClass().getSimpleName()).toFile();
+        resourcesFolder = new File(tempFolder, "resources");
+        TestFiles.write(new File(resourcesFolder, "app.properties"), "application");
+        TestFiles.write(new File(resourcesFolder, "lib/library.jar"), "library");
+        appImage = new File(tempFolder, "native/App");
+        TestFiles.write(new File(appImage, "app/app.properties"), "application");
+        TestFiles.write(new File(appImage, "app/lib/library.jar"), "library");
+        TestFiles.write(new File(appImage, "runtime/lib/rt.jar"), "runtime");
+        incrementalAppImage = new IncrementalAppImage(new File(tempFolder, "state"), Logging.getLogger(getClass()));
+    }
+
+    @AfterMethod
+    public void deleteTempFolder() throws IOException {
+        TestFiles.deleteRecursive(tempFolder);
+    }
+
+    @Test
+    public void requirePreviousImage() {
+        assertNull(incrementalAppImage.update(BUNDLER_ID, getParams("app.properties", "lib/library.jar")));
+    }
+
+    @Test
+    public void skipUnsupportedBundlers() {
+        incrementalAppImage.imageCreated("deb", getParams("app.properties", "lib/library.jar"), appImage);
+        assertNull(incrementalAppImage.update("deb", getParams("app.properties", "lib/library.jar")));
+    }
+
+    @Test
+    public void applyChangedResources() throws IOException {
+        incrementalAppImage.imageCreated(BUNDLER_ID, getParams("app.properties", "lib/library.jar"), appImage);
+
+        modify(new File(resourcesFolder, "app.properties"), "changed application");
+        TestFiles.write(new File(resourcesFolder, "config/settings.properties"), "added");
+        assertEquals(incrementalAppImage.update(BUNDLER_ID, getParams("app.properties", "config/settings.properties")), appImage);
+
+        assertEquals(read(new File(appImage, "app/app.properties")), "changed application");
+        assertEquals(read(new File(appImage, "app/config/settings.properties")), "added");
+        assertFalse(new File(appImage, "app/lib/library.jar").exists());
+        // folders left empty are removed too
+        assertFalse(new File(appImage, "app/lib").exists());
+        assertTrue(new File(appImage, "runtime/lib/rt.jar").exists());
+    }
+
+    @Test
+    public void updateImageAgain() throws IOException {
+        incrementalAppImage.imageCreated(BUNDLER_ID, getParams("app.properties", "lib/library.jar"), appImage);
+        modify(new File(resourcesFolder, "app.properties"), "changed application");
+        Map<String, ? super Object> params = getParams("app.properties", "lib/library.jar");
+        assertEquals(incrementalAppImage.update(BUNDLER_ID, params), appImage);
+        incrementalAppImage.imageCreated(BUNDLER_ID, params, appImage);
+
+        modify(new File(resourcesFolder, "lib/library.jar"), "changed library");
+        assertEquals(incrementalAppImage.update(BUNDLER_ID, getParams("app.properties", "lib/library.jar")), appImage);
+        assertEquals(read(new File(appImage, "app/lib/library.jar")), "changed library");
+    }
+
+    @Test
+    public void recreateImageWhenConfigurationChanged() {
+        incrementalAppImage.imageCreated(BUNDLER_ID, getParams("app.properties", "lib/library.jar"), appImage);
+        Map<String, ? super Object> params = getParams("app.properties", "lib/library.jar");
+        params.put("appName", "Renamed");
+        assertNull(incrementalAppImage.update(BUNDLER_ID, params));
+    }
+
+    @Test
+    public void recreateImageWhenRuntimeChanged() throws IOException {
+        incrementalAppImage.imageCreated(BUNDLER_ID, getParams("app.properties", "lib/library.jar"), appImage);
+        modify(new File(appImage, "runtime/lib/rt.jar"), "modified runtime");
+        assertNull(incrementalAppImage.update(BUNDLER_ID, getParams("app.properties", "lib/library.jar")));
+    }
+
+    @Test
+    public void applyChangedResourcesUsingJreOfRunningJdk() throws IOException {
+        Map<String, ? super Object> params = getParams("app.properties", "lib/library.jar");
+        params.remove("runtime");
+        incrementalAppImage.imageCreated(BUNDLER_ID, params, appImage);
+
+        modify(new File(resourcesFolder, "app.properties"), "changed application");
+        params = getParams("app.properties", "lib/library.jar");
+        params.remove("runtime");
+        assertEquals(incrementalAppImage.update(BUNDLER_ID, params), appImage);
+    }
+
+    @Test
+    public void recreateModifiedImage() throws IOException {
+        incrementalAppImage.imageCreated(BUNDLER_ID, getParams("app.properties", "lib/library.jar"), appImage);
+        TestFiles.write(new File(appImage, "app/unknown.txt"), "not created by the bundler");
+        assertNull(incrementalAppImage.update(BUNDLER_ID, getParams("app.properties", "lib/library.jar")));
+    }
+
+    @Test
+    public void recreateImageHavingUnknownParameters() {
+        Map<String, ? super Object> params = getParams("app.properties", "lib/library.jar");
+        params.put("unknown", new Object());
+        incrementalAppImage.imageCreated(BUNDLER_ID, params, appImage);
+        assertNull(incrementalAppImage.update(BUNDLER_ID, params));
+    }
+
+    private Map<String, ? super Object> getParams(String... resources) {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put("appName", "App");
+        // no runtime at all, the JRE of the running JDK would be used otherwise
+        params.put("runtime", null);
+        List<File> resourceFiles = new ArrayList<>();
+        Arrays.stream(resources).map(resource -> new File(resourcesFolder, resource)).forEach(resourceFiles::add);
+        params.put("appResources", new RelativeFileSet(resourcesFolder, resourceFiles));
+        return params;
+    }
+
+    private void modify(File file, String content) throws IOException {
+        long lastModified = file.lastModified();
+        TestFiles.write(file, content);
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(lastModified + 2000));
+    }
+
+    private String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
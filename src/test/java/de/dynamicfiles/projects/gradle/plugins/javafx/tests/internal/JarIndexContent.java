@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.JarIndex;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Danny Althoff
+ */
+public class JarIndexContent {
+
+    @Test
+    public void listPackagesPerJarInClasspathOrder() {
+        JarIndex index = new JarIndex();
+        assertTrue(index.isEmpty());
+        index.addJar("project-jfx.jar", Arrays.asList("META-INF/", "META-INF/MANIFEST.MF", "com/example/Main.class", "com/example/ui/View.class", "config.properties"));
+        index.addJar("lib/library.jar", Arrays.asList("org/example/Library.class", "META-INF/INDEX.LIST", "org/example/Helper.class"));
+        assertFalse(index.isEmpty());
+
+        // manifest and index are skipped, files inside the root are listed as they are
+        String expectedIndex = "JarIndex-Version: 1.0\n\n"
+                + "project-jfx.jar\ncom/example\ncom/example/ui\nconfig.properties\n\n"
+                + "lib/library.jar\norg/example\n\n";
+        assertEquals(new String(index.toBytes(), StandardCharsets.UTF_8), expectedIndex);
+    }
+
+    @Test
+    public void readEntriesOfJarFile() throws IOException {
+        File tempFolder = Files.createTempDirectory("javafx-gradle-plugin-tests-" + getClass().getSimpleName()).toFile();
+        try{
+            File jarFile = new File(tempFolder, "library.jar");
+            try(JarOutputStream jarOutput = new JarOutputStream(new FileOutputStream(jarFile))){
+                for( String entryName : Arrays.asList("org/", "org/example/", "org/example/Library.class", "org/example/impl/Impl.class") ){
+                    jarOutput.putNextEntry(new ZipEntry(entryName));
+                    jarOutput.closeEntry();
+                }
+            }
+            JarIndex index = new JarIndex();
+            index.addJar("lib/library.jar", jarFile);
+            assertEquals(new String(index.toBytes(), StandardCharsets.UTF_8), "JarIndex-Version: 1.0\n\nlib/library.jar\norg\norg/example\norg/example/impl\n\n");
+        } finally{
+            TestFiles.deleteRecursive(tempFolder);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.LibFolderState;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.gradle.api.logging.Logging;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Danny Althoff
+ */
+public class LibFolderStateTracking {
+
+    private File tempFolder;
+    private File stateFile;
+    private File libFolder;
+
+    @BeforeMethod
+    public void createTempFolder() throws IOException {
+        tempFolder = Files.createTempDirectory("javafx-gradle-plugin-tests-" + getClass().getSimpleName()).toFile();
+        stateFile = new File(tempFolder, "state/lib-folder.properties");
+        libFolder = new File(tempFolder, "lib");
+    }
+
+    @AfterMethod
+    public void deleteTempFolder() throws IOException {
+        TestFiles.deleteRecursive(tempFolder);
+    }
+
+    @Test
+    public void skipUnchangedFiles() throws IOException {
+        File source = TestFiles.write(new File(tempFolder, "repository/library.jar"), "library");
+        File target = new File(libFolder, "library.jar");
+
+        LibFolderState firstRun = newState();
+        assertFalse(firstRun.isUpToDate(source.toPath(), target.toPath()));
+        stage(firstRun, source, target);
+        firstRun.save();
+
+        LibFolderState secondRun = newState();
+        assertTrue(secondRun.isUpToDate(source.toPath(), target.toPath()));
+    }
+
+    @Test
+    public void copyChangedFiles() throws IOException {
+        File source = TestFiles.write(new File(tempFolder, "repository/library.jar"), "library");
+        File target = new File(libFolder, "library.jar");
+        LibFolderState firstRun = newState();
+        stage(firstRun, source, target);
+        firstRun.save();
+
+        TestFiles.write(source, "changed library");
+        Files.setLastModifiedTime(source.toPath(), FileTime.fromMillis(source.lastModified() + 2000));
+        assertFalse(newState().isUpToDate(source.toPath(), target.toPath()));
+    }
+
+    @Test
+    public void copyModifiedOrMissingTargets() throws IOException {
+        File source = TestFiles.write(new File(tempFolder, "repository/library.jar"), "library");
+        File target = new File(libFolder, "library.jar");
+        LibFolderState firstRun = newState();
+        stage(firstRun, source, target);
+        firstRun.save();
+
+        TestFiles.write(target, "modified inside lib-folder");
+        assertFalse(newState().isUpToDate(source.toPath(), target.toPath()));
+        assertTrue(target.delete());
+        assertFalse(newState().isUpToDate(source.toPath(), target.toPath()));
+    }
+
+    @Test
+    public void removeStaleFilesOnly() throws IOException {
+        File keptSource = TestFiles.write(new File(tempFolder, "repository/kept.jar"), "kept");
+        File removedSource = TestFiles.write(new File(tempFolder, "repository/removed.jar"), "removed");
+        LibFolderState firstRun = newState();
+        stage(firstRun, keptSource, new File(libFolder, "kept.jar"));
+        stage(firstRun, removedSource, new File(libFolder, "removed.jar"));
+        firstRun.save();
+        // not placed by the plugin, so never removed
+        File foreignFile = TestFiles.write(new File(libFolder, "foreign.jar"), "foreign");
+
+        LibFolderState secondRun = newState();
+        stage(secondRun, keptSource, new File(libFolder, "kept.jar"));
+        secondRun.removeStaleFiles(libFolder);
+        secondRun.save();
+
+        assertTrue(new File(libFolder, "kept.jar").exists());
+        assertFalse(new File(libFolder, "removed.jar").exists());
+        assertTrue(foreignFile.exists());
+    }
+
+    @Test
+    public void ignoreUnreadableState() throws IOException {
+        File source = TestFiles.write(new File(tempFolder, "repository/library.jar"), "library");
+        File target = new File(libFolder, "library.jar");
+        stage(newState(), source, target);
+        // some folder instead of the state-file
+        assertTrue(stateFile.mkdirs());
+        assertFalse(newState().isUpToDate(source.toPath(), target.toPath()));
+    }
+
+    private LibFolderState newState() {
+        return new LibFolderState(stateFile, Logging.getLogger(getClass()));
+    }
+
+    private void stage(LibFolderState state, File source, File target) throws IOException {
+        Files.createDirectories(target.getParentFile().toPath());
+        Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        state.staged(source.toPath(), target.toPath());
+    }
+}
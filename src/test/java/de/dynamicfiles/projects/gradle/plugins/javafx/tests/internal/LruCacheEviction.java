@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.LruCache;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Danny Althoff
+ */
+public class LruCacheEviction {
+
+    @Test
+    public void removeLeastRecentlyUsedEntries() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("first", "1");
+        cache.put("second", "2");
+        // makes "second" the least recently used one
+        assertEquals(cache.get("first"), "1");
+        cache.put("third", "3");
+        assertEquals(cache.size(), 2);
+        assertNull(cache.get("second"));
+        assertEquals(cache.get("first"), "1");
+        assertEquals(cache.get("third"), "3");
+    }
+
+    @Test
+    public void replaceExistingEntries() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("first", "1");
+        cache.put("first", "changed");
+        assertEquals(cache.size(), 1);
+        assertEquals(cache.get("first"), "changed");
+    }
+}
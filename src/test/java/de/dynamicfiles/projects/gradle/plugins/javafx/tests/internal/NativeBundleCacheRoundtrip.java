@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.NativeBundleCache;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.gradle.api.logging.Logging;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Danny Althoff
+ */
+public class NativeBundleCacheRoundtrip {
+
+    private File tempFolder;
+    private File outputFolder;
+    private NativeBundleCache cache;
+
+    @BeforeMethod
+    public void createCache() throws IOException {
+        tempFolder = Files.createTempDirectory("javafx-gradle-plugin-tests-" + getClass().getSimpleName()).toFile();
+        outputFolder = new File(tempFolder, "native");
+        cache = new NativeBundleCache(new File(tempFolder, "cache"), outputFolder, Logging.getLogger(getClass()));
+    }
+
+    @AfterMethod
+    public void deleteTempFolder() throws IOException {
+        TestFiles.deleteRecursive(tempFolder);
+    }
+
+    @Test
+    public void createSameFingerprintForSameContent() throws IOException {
+        File license = TestFiles.write(new File(tempFolder, "license.txt"), "license");
+        String fingerprint = cache.getFingerprint("deb", getParams(license), null, null);
+        assertNotNull(fingerprint);
+        assertEquals(cache.getFingerprint("deb", getParams(license), null, null), fingerprint);
+        assertNotEquals(cache.getFingerprint("rpm", getParams(license), null, null), fingerprint);
+    }
+
+    @Test
+    public void describeFilesReferencedByStrings() throws IOException {
+        File license = TestFiles.write(new File(tempFolder, "license.txt"), "license");
+        String fingerprint = cache.getFingerprint("deb", getParams(license), null, null);
+        // same path, other content
+        TestFiles.write(license, "changed license");
+        assertNotEquals(cache.getFingerprint("deb", getParams(license), null, null), fingerprint);
+    }
+
+    @Test
+    public void describeDirectoriesReferencedByStrings() throws IOException {
+        File resources = new File(tempFolder, "resources");
+        TestFiles.write(new File(resources, "icon.png"), "icon");
+        String fingerprint = cache.getFingerprint("deb", getParams(resources), null, null);
+        TestFiles.write(new File(resources, "icon.png"), "changed icon");
+        assertNotEquals(cache.getFingerprint("deb", getParams(resources), null, null), fingerprint);
+    }
+
+    @Test
+    public void skipUnknownParameterTypes() throws IOException {
+        Map<String, ? super Object> params = getParams(TestFiles.write(new File(tempFolder, "license.txt"), "license"));
+        params.put("unknown", new Object());
+        assertNull(cache.getFingerprint("deb", params, null, null));
+    }
+
+    @Test
+    public void restoreStoredBundle() throws IOException {
+        File bundle = new File(outputFolder, "App");
+        TestFiles.write(new File(bundle, "app/app.jar"), "application");
+        File launcher = TestFiles.write(new File(bundle, "App"), "launcher");
+        assertTrue(launcher.setExecutable(true, false));
+        Files.createDirectories(new File(bundle, "runtime/empty").toPath());
+        String fingerprint = cache.getFingerprint("linux.app", getParams(launcher), null, null);
+        cache.store(fingerprint, bundle);
+
+        TestFiles.deleteRecursive(bundle);
+        assertEquals(cache.restore(fingerprint), bundle);
+        assertEquals(read(new File(bundle, "app/app.jar")), "application");
+        assertEquals(read(new File(bundle, "App")), "launcher");
+        assertTrue(new File(bundle, "App").canExecute());
+        assertTrue(new File(bundle, "runtime/empty").isDirectory());
+    }
+
+    @Test
+    public void keepSymbolicLinks() throws IOException {
+        File outside = new File(tempFolder, "outside");
+        TestFiles.write(new File(outside, "secret.txt"), "not part of the bundle");
+        File bundle = new File(outputFolder, "App");
+        TestFiles.write(new File(bundle, "runtime/lib/libjvm.so"), "library");
+        Files.createSymbolicLink(new File(bundle, "runtime/lib/libjvm-link.so").toPath(), Paths.get("libjvm.so"));
+        Files.createSymbolicLink(new File(bundle, "outside").toPath(), outside.toPath());
+        String fingerprint = cache.getFingerprint("linux.app", new HashMap<>(), null, null);
+        cache.store(fingerprint, bundle);
+
+        // replacing the existing bundle must not follow the link
+        assertEquals(cache.restore(fingerprint), bundle);
+        assertTrue(new File(outside, "secret.txt").exists());
+
+        Path fileLink = new File(bundle, "runtime/lib/libjvm-link.so").toPath();
+        assertTrue(Files.isSymbolicLink(fileLink));
+        assertEquals(Files.readSymbolicLink(fileLink), Paths.get("libjvm.so"));
+        Path folderLink = new File(bundle, "outside").toPath();
+        assertTrue(Files.isSymbolicLink(folderLink));
+        assertEquals(Files.readSymbolicLink(folderLink), outside.toPath());
+    }
+
+    @Test
+    public void skipMissingBundles() throws IOException {
+        assertNull(cache.restore(cache.getFingerprint("deb", new HashMap<>(), null, null)));
+    }
+
+    @Test
+    public void skipBundlesOutsideOfOutputFolder() throws IOException {
+        File bundle = TestFiles.write(new File(tempFolder, "elsewhere/app.deb"), "package");
+        String fingerprint = cache.getFingerprint("deb", new HashMap<>(), null, null);
+        cache.store(fingerprint, bundle);
+        assertNull(cache.restore(fingerprint));
+        assertFalse(new File(outputFolder, "app.deb").exists());
+    }
+
+    @Test
+    public void skipBundlesLeavingOutputFolder() throws IOException {
+        File bundle = TestFiles.write(new File(outputFolder, "app.deb"), "package");
+        String fingerprint = cache.getFingerprint("deb", new HashMap<>(), null, null);
+        cache.store(fingerprint, bundle);
+        File outside = TestFiles.write(new File(tempFolder, "outside.txt"), "not part of the bundle");
+        modifyBundle(fingerprint, "bundle", "../outside.txt");
+
+        assertNull(cache.restore(fingerprint));
+        assertEquals(read(outside), "not part of the bundle");
+    }
+
+    @Test
+    public void skipBundlesHavingFilesOutsideOfBundle() throws IOException {
+        File bundle = new File(outputFolder, "App");
+        TestFiles.write(new File(bundle, "app/lib/library.jar"), "library");
+        String fingerprint = cache.getFingerprint("linux.app", new HashMap<>(), null, null);
+        cache.store(fingerprint, bundle);
+        File outside = TestFiles.write(new File(tempFolder, "outside.txt"), "not part of the bundle");
+        modifyBundle(fingerprint, "file.../../outside.txt", readBundle(fingerprint).getProperty("file.app/lib/library.jar"));
+
+        assertNull(cache.restore(fingerprint));
+        assertEquals(read(outside), "not part of the bundle");
+    }
+
+    @Test
+    public void pruneUnusedBundles() throws IOException {
+        File oldBundle = TestFiles.write(new File(outputFolder, "old.deb"), "old package");
+        String oldFingerprint = cache.getFingerprint("deb", getParams(oldBundle), null, null);
+        cache.store(oldFingerprint, oldBundle);
+        File usedBundle = TestFiles.write(new File(outputFolder, "used.deb"), "used package");
+        String usedFingerprint = cache.getFingerprint("deb", getParams(usedBundle), null, null);
+        cache.store(usedFingerprint, usedBundle);
+        File oldObject = getObjectFile(readBundle(oldFingerprint).getProperty("file."));
+        File usedObject = getObjectFile(readBundle(usedFingerprint).getProperty("file."));
+
+        long twoHoursAgo = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2);
+        try(Stream<Path> walkstream = Files.walk(new File(tempFolder, "cache/objects").toPath())){
+            walkstream.forEach(path -> assertTrue(path.toFile().setLastModified(twoHoursAgo)));
+        }
+        File oldBundleFile = getBundleFile(oldFingerprint);
+        assertTrue(oldBundleFile.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31)));
+
+        // keeping them forever
+        cache.prune(0);
+        assertTrue(oldBundleFile.exists());
+
+        cache.prune(30);
+        assertFalse(oldBundleFile.exists());
+        assertNull(cache.restore(oldFingerprint));
+        assertFalse(oldObject.exists());
+        assertTrue(usedObject.exists());
+        assertEquals(cache.restore(usedFingerprint), usedBundle);
+    }
+
+    private Map<String, ? super Object> getParams(File file) {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put("appName", "App");
+        params.put("linux.deb.licenseFile", file.getAbsolutePath());
+        return params;
+    }
+
+    private Properties readBundle(String fingerprint) throws IOException {
+        Properties bundle = new Properties();
+        try(InputStream bundleInput = Files.newInputStream(getBundleFile(fingerprint).toPath())){
+            bundle.load(bundleInput);
+        }
+        return bundle;
+    }
+
+    private void modifyBundle(String fingerprint, String key, String value) throws IOException {
+        Properties bundle = readBundle(fingerprint);
+        bundle.setProperty(key, value);
+        try(OutputStream bundleOutput = Files.newOutputStream(getBundleFile(fingerprint).toPath())){
+            bundle.store(bundleOutput, null);
+        }
+    }
+
+    private File getBundleFile(String fingerprint) {
+        return new File(tempFolder, "cache/bundles/" + fingerprint + ".properties");
+    }
+
+    private File getObjectFile(String objectId) {
+        return new File(tempFolder, "cache/objects/" + objectId.substring(0, 2) + "/" + objectId);
+    }
+
+    private String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2016 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.gradle.plugins.javafx.tests.internal;
+
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.RawJarFile;
+import de.dynamicfiles.projects.gradle.plugins.javafx.tasks.internal.RawJarWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Writes jar-files using RawJarWriter and reads them again using java.util.jar, which is what the JVM does
+ * when starting the application.
+ *
+ * @author Danny Althoff
+ */
+public class RawJarRoundtrip {
+
+    private File tempFolder;
+
+    @BeforeMethod
+    public void createTempFolder() throws IOException {
+        tempFolder = Files.createTempDirectory("javafx-gradle-plugin-tests-" + getClass().getSimpleName()).toFile();
+    }
+
+    @AfterMethod
+    public void deleteTempFolder() throws IOException {
+        TestFiles.deleteRecursive(tempFolder);
+    }
+
+    @Test
+    public void copyStoredAndDeflatedEntries() throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("some/", new byte[0]);
+        contents.put("some/Stored.class", "stored content".getBytes(StandardCharsets.UTF_8));
+        contents.put("some/Deflated.class", repeat("deflated content ", 500));
+        File sourceJar = createSourceJar("source.jar", contents, Collections.singletonList("some/Stored.class"));
+
+        File targetJar = new File(tempFolder, "target.jar");
+        try(RawJarFile source = new RawJarFile(sourceJar); RawJarWriter writer = new RawJarWriter(targetJar)){
+            List<RawJarFile.Entry> entries = source.getEntries();
+            assertEquals(entries.size(), 3);
+            assertEquals(source.getEntry("some/Stored.class").getMethod(), ZipEntry.STORED);
+            assertEquals(source.getEntry("some/Deflated.class").getMethod(), ZipEntry.DEFLATED);
+            for( RawJarFile.Entry entry : entries ){
+                assertTrue(writer.copyEntry(source, entry));
+            }
+        }
+
+        assertJarContents(targetJar, contents);
+        try(JarFile jarFile = new JarFile(targetJar)){
+            assertEquals(jarFile.getEntry("some/Stored.class").getMethod(), ZipEntry.STORED);
+            assertEquals(jarFile.getEntry("some/Deflated.class").getMethod(), ZipEntry.DEFLATED);
+        }
+    }
+
+    @Test
+    public void copyEntriesHavingDataDescriptor() throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("first.txt", repeat("first ", 1000));
+        contents.put("second.txt", repeat("second ", 1000));
+        // deflated entries of ZipOutputStream always have some data descriptor
+        File sourceJar = createSourceJar("source.jar", contents, Collections.emptyList());
+
+        File targetJar = new File(tempFolder, "target.jar");
+        try(RawJarFile source = new RawJarFile(sourceJar); RawJarWriter writer = new RawJarWriter(targetJar)){
+            for( RawJarFile.Entry entry : source.getEntries() ){
+                writer.copyEntry(source, entry);
+            }
+        }
+
+        // reading sequentially only works when the local headers are correct
+        assertJarContents(targetJar, contents);
+    }
+
+    @Test
+    public void readContentOfEntries() throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("stored.txt", "stored".getBytes(StandardCharsets.UTF_8));
+        contents.put("deflated.txt", repeat("deflated ", 1000));
+        File sourceJar = createSourceJar("source.jar", contents, Collections.singletonList("stored.txt"));
+
+        try(RawJarFile source = new RawJarFile(sourceJar)){
+            for( Map.Entry<String, byte[]> content : contents.entrySet() ){
+                try(InputStream entryContent = source.getInputStream(source.getEntry(content.getKey()))){
+                    assertEquals(readFully(entryContent), content.getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void skipDuplicateEntries() throws IOException {
+        Map<String, byte[]> firstContents = new LinkedHashMap<>();
+        firstContents.put("duplicate.txt", "first".getBytes(StandardCharsets.UTF_8));
+        File firstJar = createSourceJar("first.jar", firstContents, Collections.emptyList());
+        Map<String, byte[]> secondContents = new LinkedHashMap<>();
+        secondContents.put("duplicate.txt", "second".getBytes(StandardCharsets.UTF_8));
+        secondContents.put("other.txt", "other".getBytes(StandardCharsets.UTF_8));
+        File secondJar = createSourceJar("second.jar", secondContents, Collections.emptyList());
+
+        File targetJar = new File(tempFolder, "target.jar");
+        try(RawJarFile first = new RawJarFile(firstJar); RawJarFile second = new RawJarFile(secondJar); RawJarWriter writer = new RawJarWriter(targetJar)){
+            assertTrue(writer.copyEntry(first, first.getEntry("duplicate.txt")));
+            assertFalse(writer.copyEntry(second, second.getEntry("duplicate.txt")));
+            assertFalse(writer.writeEntry("duplicate.txt", "third".getBytes(StandardCharsets.UTF_8), 0));
+            assertTrue(writer.copyEntry(second, second.getEntry("other.txt")));
+        }
+
+        Map<String, byte[]> expectedContents = new LinkedHashMap<>();
+        expectedContents.put("duplicate.txt", "first".getBytes(StandardCharsets.UTF_8));
+        expectedContents.put("other.txt", "other".getBytes(StandardCharsets.UTF_8));
+        assertJarContents(targetJar, expectedContents);
+    }
+
+    @Test
+    public void writeManifestFirst() throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("some/Main.class", repeat("main ", 100));
+        File sourceJar = createSourceJar("source.jar", contents, Collections.emptyList());
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "some.Main");
+        ByteArrayOutputStream manifestContent = new ByteArrayOutputStream();
+        manifest.write(manifestContent);
+
+        File targetJar = new File(tempFolder, "target.jar");
+        try(RawJarFile source = new RawJarFile(sourceJar); RawJarWriter writer = new RawJarWriter(targetJar)){
+            writer.writeEntry("META-INF/", new byte[0], RawJarWriter.CONSTANT_TIMESTAMP);
+            writer.writeEntry(JarFile.MANIFEST_NAME, manifestContent.toByteArray(), RawJarWriter.CONSTANT_TIMESTAMP);
+            for( RawJarFile.Entry entry : source.getEntries() ){
+                writer.copyEntry(source, entry);
+            }
+        }
+
+        try(RawJarFile target = new RawJarFile(targetJar)){
+            List<String> entryNames = target.getEntries().stream().map(RawJarFile.Entry::getName).collect(Collectors.toList());
+            assertEquals(entryNames.get(0), "META-INF/");
+            assertEquals(entryNames.get(1), JarFile.MANIFEST_NAME);
+        }
+        // JarInputStream only finds the manifest when being one of the first entries
+        try(JarInputStream jarInputStream = new JarInputStream(new FileInputStream(targetJar))){
+            assertNotNull(jarInputStream.getManifest());
+            assertEquals(jarInputStream.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS), "some.Main");
+        }
+        try(JarFile jarFile = new JarFile(targetJar)){
+            assertEquals(jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS), "some.Main");
+        }
+    }
+
+    @Test
+    public void changeCompressionLevel() throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("stored.txt", repeat("stored ", 1000));
+        contents.put("deflated.txt", repeat("deflated ", 1000));
+        File sourceJar = createSourceJar("source.jar", contents, Collections.singletonList("stored.txt"));
+
+        File storedJar = new File(tempFolder, "stored.jar");
+        File deflatedJar = new File(tempFolder, "deflated.jar");
+        try(RawJarFile source = new RawJarFile(sourceJar); RawJarWriter storedWriter = new RawJarWriter(storedJar); RawJarWriter deflatedWriter = new RawJarWriter(deflatedJar)){
+            storedWriter.setCompressionLevel(0);
+            deflatedWriter.setCompressionLevel(9);
+            for( RawJarFile.Entry entry : source.getEntries() ){
+                storedWriter.copyEntry(source, entry);
+                deflatedWriter.copyEntry(source, entry);
+            }
+        }
+
+        assertJarContents(storedJar, contents);
+        assertJarContents(deflatedJar, contents);
+        try(JarFile jarFile = new JarFile(storedJar)){
+            assertEquals(jarFile.getEntry("deflated.txt").getMethod(), ZipEntry.STORED);
+        }
+        try(JarFile jarFile = new JarFile(deflatedJar)){
+            assertEquals(jarFile.getEntry("stored.txt").getMethod(), ZipEntry.DEFLATED);
+        }
+    }
+
+    @Test
+    public void writeReproducibleJar() throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("some.txt", repeat("some ", 100));
+        File sourceJar = createSourceJar("source.jar", contents, Collections.emptyList());
+
+        File firstJar = new File(tempFolder, "first.jar");
+        File secondJar = new File(tempFolder, "second.jar");
+        for( File targetJar : new File[]{firstJar, secondJar} ){
+            try(RawJarFile source = new RawJarFile(sourceJar); RawJarWriter writer = new RawJarWriter(targetJar)){
+                writer.setReproducible(true);
+                writer.writeEntry("new.txt", "new".getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+                for( RawJarFile.Entry entry : source.getEntries() ){
+                    writer.copyEntry(source, entry);
+                }
+            }
+        }
+
+        assertEquals(Files.readAllBytes(firstJar.toPath()), Files.readAllBytes(secondJar.toPath()));
+    }
+
+    private File createSourceJar(String fileName, Map<String, byte[]> contents, List<String> storedEntries) throws IOException {
+        File jarFile = new File(tempFolder, fileName);
+        try(JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile))){
+            for( Map.Entry<String, byte[]> content : contents.entrySet() ){
+                JarEntry entry = new JarEntry(content.getKey());
+                if( storedEntries.contains(content.getKey()) || content.getKey().endsWith("/") ){
+                    CRC32 crc = new CRC32();
+                    crc.update(content.getValue());
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(content.getValue().length);
+                    entry.setCompressedSize(content.getValue().length);
+                    entry.setCrc(crc.getValue());
+                }
+                jarOutputStream.putNextEntry(entry);
+                jarOutputStream.write(content.getValue());
+                jarOutputStream.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+
+    /*
+     * Checks the central directory (JarFile) as well as all local headers (JarInputStream).
+     */
+    private void assertJarContents(File jar, Map<String, byte[]> expectedContents) throws IOException {
+        try(JarFile jarFile = new JarFile(jar)){
+            assertEquals(Collections.list(jarFile.entries()).size(), expectedContents.size());
+            for( Map.Entry<String, byte[]> expectedContent : expectedContents.entrySet() ){
+                JarEntry entry = jarFile.getJarEntry(expectedContent.getKey());
+                assertNotNull(entry, expectedContent.getKey());
+                try(InputStream entryContent = jarFile.getInputStream(entry)){
+                    assertEquals(readFully(entryContent), expectedContent.getValue(), expectedContent.getKey());
+                }
+            }
+        }
+        int entryCount = 0;
+        try(JarInputStream jarInputStream = new JarInputStream(new FileInputStream(jar))){
+            JarEntry entry;
+            while((entry = jarInputStream.getNextJarEntry()) != null) {
+                entryCount++;
+                assertEquals(readFully(jarInputStream), expectedContents.get(entry.getName()), entry.getName());
+            }
+        }
+        assertEquals(entryCount, expectedContents.size());
+    }
+
+    private byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while((count = inputStream.read(buffer)) > 0) {
+            content.write(buffer, 0, count);
+        }
+        return content.toByteArray();
+    }
+
+    private byte[] repeat(String text, int times) {
+        StringBuilder content = new StringBuilder();
+        for( int i = 0; i < times; i++ ){
+            content.append(text);
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}